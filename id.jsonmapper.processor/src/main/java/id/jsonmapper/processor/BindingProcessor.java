@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a <code>CompiledBinding</code> for every class that declares <code>@JSON</code> fields.
+ * The generated source is placed in the package of the mapped class, so it can create instances
+ * and read and write non-private fields directly. It is named after the binary name of the mapped
+ * class, e.g. <code>Outer$Inner_JsonBinding</code> for the nested class <code>Outer.Inner</code>,
+ * so that distinct classes never share a binding name. At runtime JSON Mapper finds the binding by
+ * name and uses it instead of reflection.
+ * <p>
+ * The processor also writes a GraalVM <code>reflect-config.json</code>. It registers the
+ * generated bindings, the declared fields and no-argument constructors of the mapped classes, which
+ * JSON Mapper still reads reflectively to build its binding plans, and the converters named by
+ * <code>@ConvertUsing</code>. Other classes that are created reflectively, such as the concrete
+ * classes of fields declared with an interface or abstract type, are not covered and have to be
+ * registered separately for a native image.
+ * <p>
+ * To use it, add <code>id.jsonmapper.processor</code> to the annotation processor path of the
+ * build that compiles the mapped classes.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+@SupportedAnnotationTypes({"id.jsonmapper.JSON", "id.jsonmapper.Raw", "id.jsonmapper.ConvertUsing"})
+public class BindingProcessor extends AbstractProcessor {
+
+	private static final String JSON_ANNOTATION    = "id.jsonmapper.JSON";
+	private static final String CONVERT_ANNOTATION = "id.jsonmapper.ConvertUsing";
+	private static final String SUFFIX             = "_JsonBinding";
+	private static final String NATIVE_CONFIG      =
+			"META-INF/native-image/id.jsonmapper/bindings/reflect-config.json";
+
+	private final Map<String, String> nativeEntries = new LinkedHashMap<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if(roundEnv.processingOver()) {
+			writeNativeConfig();
+			return false;
+		}
+
+		TypeElement jsonAnn = processingEnv.getElementUtils().getTypeElement(JSON_ANNOTATION);
+		if(jsonAnn == null) {
+			return false;
+		}
+
+		Map<TypeElement, List<VariableElement>> fieldsByType = new LinkedHashMap<>();
+		for(Element elem : roundEnv.getElementsAnnotatedWith(jsonAnn)) {
+			if(elem.getKind() != ElementKind.FIELD || elem.getModifiers().contains(Modifier.STATIC)) {
+				continue;
+			}
+			TypeElement owner = (TypeElement) elem.getEnclosingElement();
+			List<VariableElement> fields = fieldsByType.get(owner);
+			if(fields == null) {
+				fields = new ArrayList<>();
+				fieldsByType.put(owner, fields);
+			}
+			fields.add((VariableElement) elem);
+		}
+
+		for(Map.Entry<TypeElement, List<VariableElement>> entry : fieldsByType.entrySet()) {
+			TypeElement type = entry.getKey();
+			registerMapped(type, entry.getValue());
+			if(!isReachable(type, processingEnv.getElementUtils().getPackageOf(type))) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+						"no binding generated for inaccessible class " + type, type);
+				continue;
+			}
+			try {
+				generate(type, entry.getValue());
+			}
+			catch(IOException exep) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"unable to write binding for " + type + ": " + exep.getMessage(), type);
+			}
+		}
+		return false;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private void generate(TypeElement type, List<VariableElement> fields) throws IOException {
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		String pkgName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String flatName = pkgName.isEmpty() ? binaryName : binaryName.substring(pkgName.length() + 1);
+		//the binary name keeps nested classes apart from top-level classes with an underscore
+		String simpleName = flatName + SUFFIX;
+		String qualifiedName = pkgName.isEmpty() ? simpleName : pkgName + "." + simpleName;
+		String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+		StringBuilder src = new StringBuilder();
+		if(!pkgName.isEmpty()) {
+			src.append("package ").append(pkgName).append(";\n\n");
+		}
+		src.append("import id.jsonmapper.bind.AbstractFieldAccessor;\n");
+		src.append("import id.jsonmapper.bind.CompiledBinding;\n");
+		src.append("import id.jsonmapper.bind.FieldAccessor;\n\n");
+		src.append("/**\n * Generated by the JSON Mapper annotation processor for {@link ")
+				.append(typeName).append("}. Do not edit.\n */\n\n");
+		src.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+		src.append("public final class ").append(simpleName).append(" implements CompiledBinding {\n\n");
+
+		src.append("\t@Override\n\tpublic Object newInstance() {\n");
+		if(isInstantiable(type)) {
+			src.append("\t\treturn new ").append(typeName).append("();\n");
+		}
+		else {
+			src.append("\t\treturn null;\n");
+		}
+		src.append("\t}\n\n");
+
+		src.append("\t@Override\n\tpublic FieldAccessor accessor(String fieldName) {\n");
+		src.append("\t\tswitch(fieldName) {\n");
+		for(VariableElement field : fields) {
+			Set<Modifier> mods = field.getModifiers();
+			if(mods.contains(Modifier.PRIVATE) || mods.contains(Modifier.FINAL)) {
+				continue;
+			}
+			if(!isAccessible(field.asType(), pkg)) {
+				//the generated setter casts to the field type, which has to be named
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+						"no accessor generated for field of inaccessible type " + field, field);
+				continue;
+			}
+			appendAccessor(src, typeName, field);
+		}
+		src.append("\t\tdefault:\n\t\t\treturn null;\n\t\t}\n\t}\n}\n");
+
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+		try(Writer out = file.openWriter()) {
+			out.write(src.toString());
+		}
+		nativeEntries.put(qualifiedName, nativeEntry(qualifiedName, false, true));
+	}
+
+	private void appendAccessor(StringBuilder src, String typeName, VariableElement field) {
+		String name = field.getSimpleName().toString();
+		String ref = "((" + typeName + ") target)." + name;
+		TypeMirror fieldType = field.asType();
+
+		src.append("\t\tcase \"").append(name).append("\":\n");
+		src.append("\t\t\treturn new AbstractFieldAccessor() {\n\n");
+		src.append("\t\t\t\t@Override\n\t\t\t\tpublic Object get(Object target) {\n");
+		src.append("\t\t\t\t\treturn ").append(ref).append(";\n\t\t\t\t}\n\n");
+		src.append("\t\t\t\t@Override\n\t\t\t\tpublic void set(Object target, Object value) {\n");
+		src.append("\t\t\t\t\t").append(ref).append(" = (")
+				.append(boxedName(fieldType)).append(") value;\n\t\t\t\t}\n");
+
+		if(fieldType.getKind().isPrimitive()) {
+			String prim = fieldType.toString();
+			String suffix = Character.toUpperCase(prim.charAt(0)) + prim.substring(1);
+			src.append("\n\t\t\t\t@Override\n\t\t\t\tpublic ").append(prim).append(" get")
+					.append(suffix).append("(Object target) {\n");
+			src.append("\t\t\t\t\treturn ").append(ref).append(";\n\t\t\t\t}\n\n");
+			src.append("\t\t\t\t@Override\n\t\t\t\tpublic void set").append(suffix)
+					.append("(Object target, ").append(prim).append(" value) {\n");
+			src.append("\t\t\t\t\t").append(ref).append(" = value;\n\t\t\t\t}\n");
+		}
+		src.append("\t\t\t};\n\n");
+	}
+
+	private String boxedName(TypeMirror type) {
+		if(type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass(
+					processingEnv.getTypeUtils().getPrimitiveType(type.getKind())).toString();
+		}
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	/**
+	 * @return true if the erasure of the given type can be named in code placed in the given
+	 *         package, outside of any class hierarchy.
+	 */
+
+	private boolean isAccessible(TypeMirror type, PackageElement pkg) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		while(erased.getKind() == TypeKind.ARRAY) {
+			erased = ((ArrayType) erased).getComponentType();
+		}
+		if(erased.getKind().isPrimitive()) {
+			return true;
+		}
+		if(erased.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		return isReachable((TypeElement) ((DeclaredType) erased).asElement(), pkg);
+	}
+
+	/**
+	 * @return true if the class and all the classes enclosing it can be named in code placed in
+	 *         the given package, outside of any class hierarchy.
+	 */
+
+	private boolean isReachable(TypeElement type, PackageElement pkg) {
+		Element elem = type;
+		while(elem.getKind() != ElementKind.PACKAGE) {
+			//local and anonymous classes cannot be named from generated code
+			if(!elem.getKind().isClass() && !elem.getKind().isInterface()) {
+				return false;
+			}
+			Set<Modifier> mods = elem.getModifiers();
+			if(mods.contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			//protected and package-private classes are visible within their own package only
+			if(!mods.contains(Modifier.PUBLIC)
+					&& !processingEnv.getElementUtils().getPackageOf(elem).equals(pkg)) {
+				return false;
+			}
+			elem = elem.getEnclosingElement();
+		}
+		return true;
+	}
+
+	private boolean isInstantiable(TypeElement type) {
+		if(type.getModifiers().contains(Modifier.ABSTRACT) || type.getKind() != ElementKind.CLASS) {
+			return false;
+		}
+		if(type.getEnclosingElement().getKind() != ElementKind.PACKAGE
+				&& !type.getModifiers().contains(Modifier.STATIC)) {
+			return false;
+		}
+		for(ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if(ctor.getParameters().isEmpty() && !ctor.getModifiers().contains(Modifier.PRIVATE)
+					&& ctor.getThrownTypes().stream().allMatch(this::isUnchecked)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isUnchecked(TypeMirror thrown) {
+		TypeMirror runtimeExep = processingEnv.getElementUtils()
+				.getTypeElement("java.lang.RuntimeException").asType();
+		TypeMirror error = processingEnv.getElementUtils().getTypeElement("java.lang.Error").asType();
+		return thrown.getKind() == TypeKind.DECLARED
+				&& (processingEnv.getTypeUtils().isSubtype(thrown, runtimeExep)
+				|| processingEnv.getTypeUtils().isSubtype(thrown, error));
+	}
+
+	/**
+	 * Registers a mapped class and the converters of its fields for reflection in native images.
+	 */
+
+	private void registerMapped(TypeElement type, List<VariableElement> fields) {
+		String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+		boolean hasCtor = false;
+		for(ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			hasCtor |= ctor.getParameters().isEmpty();
+		}
+		nativeEntries.put(name, nativeEntry(name, true, hasCtor));
+
+		for(VariableElement field : fields) {
+			TypeElement conv = converterOf(field);
+			if(conv != null) {
+				String convName = processingEnv.getElementUtils().getBinaryName(conv).toString();
+				nativeEntries.put(convName, nativeEntry(convName, false, true));
+			}
+		}
+	}
+
+	private TypeElement converterOf(VariableElement field) {
+		for(AnnotationMirror ann : field.getAnnotationMirrors()) {
+			TypeElement annType = (TypeElement) ann.getAnnotationType().asElement();
+			if(!annType.getQualifiedName().contentEquals(CONVERT_ANNOTATION)) {
+				continue;
+			}
+			for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+					: ann.getElementValues().entrySet()) {
+				Object conv = value.getValue().getValue();
+				if(value.getKey().getSimpleName().contentEquals("value")
+						&& conv instanceof DeclaredType) {
+					return (TypeElement) ((DeclaredType) conv).asElement();
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String nativeEntry(String name, boolean fields, boolean ctor) {
+		StringBuilder entry = new StringBuilder("{\"name\": \"").append(name).append('"');
+		if(fields) {
+			entry.append(", \"allDeclaredFields\": true");
+		}
+		if(ctor) {
+			entry.append(", \"methods\": [{\"name\": \"<init>\", \"parameterTypes\": []}]");
+		}
+		return entry.append('}').toString();
+	}
+
+	private void writeNativeConfig() {
+		if(nativeEntries.isEmpty()) {
+			return;
+		}
+		StringBuilder json = new StringBuilder("[\n");
+		int count = 0;
+		for(String entry : nativeEntries.values()) {
+			json.append("  ").append(entry)
+					.append((++count < nativeEntries.size()) ? ",\n" : "\n");
+		}
+		json.append("]\n");
+		try {
+			FileObject file = processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", NATIVE_CONFIG);
+			try(Writer out = file.openWriter()) {
+				out.write(json.toString());
+			}
+		}
+		catch(IOException exep) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"unable to write " + NATIVE_CONFIG + ": " + exep.getMessage());
+		}
+	}
+}
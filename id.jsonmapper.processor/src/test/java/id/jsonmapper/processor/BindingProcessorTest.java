@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import id.jsonmapper.bind.CompiledBinding;
+import id.jsonmapper.bind.FieldAccessor;
+
+/**
+ * Compiles mapped classes with the {@link BindingProcessor} and checks that the generated bindings
+ * compile and provide accessors for the fields that generated code can reach.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class BindingProcessorTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void nestedClassesKeepTheirOwnBindings() throws Exception {
+		ClassLoader loader = compile(
+				"p/Acct.java",
+				"package p;\n"
+				+ "import id.jsonmapper.JSON;\n"
+				+ "public class Acct {\n"
+				+ "  public static class Inner { @JSON(\"a\") int a; }\n"
+				+ "}\n",
+				"p/Acct_Inner.java",
+				"package p;\n"
+				+ "import id.jsonmapper.JSON;\n"
+				+ "public class Acct_Inner { @JSON(\"b\") String b; }\n");
+
+		CompiledBinding nested = binding(loader, "p.Acct$Inner");
+		Object inner = nested.newInstance();
+		nested.accessor("a").setInt(inner, 42);
+		assertEquals(42, nested.accessor("a").getInt(inner));
+
+		CompiledBinding topLevel = binding(loader, "p.Acct_Inner");
+		Object acct = topLevel.newInstance();
+		topLevel.accessor("b").set(acct, "x");
+		assertEquals("x", topLevel.accessor("b").get(acct));
+	}
+
+	@Test
+	public void privateAndFinalFieldsAreLeftToReflection() throws Exception {
+		ClassLoader loader = compile(
+				"p/Plain.java",
+				"package p;\n"
+				+ "import id.jsonmapper.JSON;\n"
+				+ "public class Plain {\n"
+				+ "  @JSON(\"a\") private String a;\n"
+				+ "  @JSON(\"b\") final String b = null;\n"
+				+ "  @JSON(\"c\") protected long c;\n"
+				+ "}\n");
+
+		CompiledBinding binding = binding(loader, "p.Plain");
+		assertNull(binding.accessor("a"));
+		assertNull(binding.accessor("b"));
+		assertNotNull(binding.accessor("c"));
+	}
+
+	@Test
+	public void genericFieldsAreSetThroughTheirErasure() throws Exception {
+		ClassLoader loader = compile(
+				"p/Box.java",
+				"package p;\n"
+				+ "import java.util.List;\n"
+				+ "import java.util.Map;\n"
+				+ "import id.jsonmapper.JSON;\n"
+				+ "public class Box<T extends Number> {\n"
+				+ "  @JSON(\"value\") T value;\n"
+				+ "  @JSON(\"names\") List<String> names;\n"
+				+ "  @JSON(\"maps\") Map<String, List<T>>[] maps;\n"
+				+ "}\n");
+
+		CompiledBinding binding = binding(loader, "p.Box");
+		Object box = binding.newInstance();
+		binding.accessor("value").set(box, 7);
+		assertEquals(7, binding.accessor("value").get(box));
+		binding.accessor("names").set(box, Collections.singletonList("x"));
+		assertEquals(Collections.singletonList("x"), binding.accessor("names").get(box));
+		assertNotNull(binding.accessor("maps"));
+	}
+
+	@Test
+	public void fieldsOfInaccessibleTypesAreLeftToReflection() throws Exception {
+		ClassLoader loader = compile(
+				"a/Outer.java",
+				"package a;\n"
+				+ "import java.util.List;\n"
+				+ "import id.jsonmapper.JSON;\n"
+				+ "public class Outer extends b.Base {\n"
+				+ "  private static class Hidden {}\n"
+				+ "  @JSON(\"h\") Hidden hidden;\n"
+				+ "  @JSON(\"hs\") Hidden[] hiddens;\n"
+				+ "  @JSON(\"hl\") List<Hidden> hiddenList;\n"
+				+ "  @JSON(\"p\") Prot prot;\n"
+				+ "  @JSON(\"n\") String name;\n"
+				+ "}\n",
+				"b/Base.java",
+				"package b;\n"
+				+ "public class Base {\n"
+				+ "  protected static class Prot {}\n"
+				+ "}\n");
+
+		CompiledBinding binding = binding(loader, "a.Outer");
+		assertNull(binding.accessor("hidden"));
+		assertNull(binding.accessor("hiddens"));
+		assertNull(binding.accessor("prot"));
+		assertNotNull(binding.accessor("hiddenList"));
+		assertNotNull(binding.accessor("name"));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Compiles the given sources, given as pairs of a path and a text, with the processor.
+	 *
+	 * @return a class loader for the compiled classes.
+	 */
+
+	private ClassLoader compile(String... sources) throws IOException {
+		Path srcDir = temp.newFolder("src").toPath();
+		File outDir = temp.newFolder("out");
+		List<File> files = new ArrayList<>();
+		for(int i=0; i<sources.length; i+=2) {
+			Path file = srcDir.resolve(sources[i]);
+			Files.createDirectories(file.getParent());
+			Files.write(file, sources[i + 1].getBytes(StandardCharsets.UTF_8));
+			files.add(file.toFile());
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diags = new DiagnosticCollector<>();
+		try(StandardJavaFileManager fileMgr = compiler.getStandardFileManager(diags, null,
+				StandardCharsets.UTF_8)) {
+
+			List<String> options = Arrays.asList("-d", outDir.getPath(),
+					"-classpath", mapperClassPath());
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileMgr, diags, options,
+					null, fileMgr.getJavaFileObjectsFromFiles(files));
+			task.setProcessors(Collections.singletonList(new BindingProcessor()));
+			boolean success = task.call();
+
+			StringBuilder errors = new StringBuilder();
+			for(Diagnostic<? extends JavaFileObject> diag : diags.getDiagnostics()) {
+				if(diag.getKind() == Diagnostic.Kind.ERROR) {
+					errors.append(diag).append('\n');
+				}
+			}
+			assertTrue(errors.toString(), success);
+		}
+		return new URLClassLoader(new URL[] {outDir.toURI().toURL()},
+				BindingProcessorTest.class.getClassLoader());
+	}
+
+	private static CompiledBinding binding(ClassLoader loader, String className)
+			throws ReflectiveOperationException {
+		Class<?> type = loader.loadClass(className + CompiledBinding.SUFFIX);
+		return (CompiledBinding) type.getDeclaredConstructor().newInstance();
+	}
+
+	private static String mapperClassPath() {
+		try {
+			URL location = FieldAccessor.class.getProtectionDomain().getCodeSource().getLocation();
+			return Paths.get(location.toURI()).toString();
+		}
+		catch(Exception exep) {
+			throw new IllegalStateException(exep);
+		}
+	}
+}
@@ -29,5 +29,5 @@ import java.lang.annotation.Target;
 
 public @interface ConvertUsing {
 
-	Class<? extends Converter> value();
+	Class<? extends FieldConverter> value();
 }
@@ -23,7 +23,7 @@ import id.jsonmapper.support.JSONObject;
  *
  */
 
-public interface Converter {
+public interface Converter extends FieldConverter {
 
 	<T> T json2Object(Object jsonObj, Class<T> type);
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a <code>String</code> field that takes few distinct values, such as a status or a currency
+ * code. Decoded values of the field are passed through a bounded cache of recent values, so that
+ * objects holding an equal value share a single <code>String</code> instance. The cache of a field,
+ * along with its hit and miss counts, is available from
+ * <code>BindingPlan.of(type).fields()</code> through <code>FieldBinding.stringCache()</code>.
+ * <p>
+ * The annotation is ignored on fields of any other type.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Dedup {
+
+	/**
+	 * @return the number of distinct values kept by the cache, rounded up to a power of two.
+	 */
+
+	int capacity() default 256;
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper;
+
+/**
+ * The common type of the converters that can be named in {@link ConvertUsing}: a
+ * {@link Converter}, which works on tree nodes, or a {@link StreamConverter}, which reads tokens
+ * and writes bytes directly.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public interface FieldConverter {
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+import id.jsonmapper.decode.Json2Object;
+import id.jsonmapper.encode.Object2Json;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONLimits;
+
+/**
+ * Entry point for converting between JSON data and Java objects. A mapper is immutable and safe
+ * for concurrent use; it is meant to be created once and shared across the application. All
+ * decoders, encoders and per-class binding plans are shared by every call.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class JsonMapper {
+
+	private final Object2Json encoder;
+	private final int         bufferSize;
+	private final JSONLimits  limits;
+
+	public JsonMapper() {
+		this(Json2Object.DEFAULT_BUFFER_SIZE, JSONLimits.DEFAULT);
+	}
+
+	/**
+	 * @param bufferSize the size of the chunks in which input streams are read.
+	 * @param limits the bounds every document read by this mapper must stay within.
+	 */
+
+	public JsonMapper(int bufferSize, JSONLimits limits) {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+		}
+		encoder = new Object2Json();
+		this.bufferSize = bufferSize;
+		this.limits = limits;
+	}
+
+	public <T> T read(byte[] data, Class<T> type) {
+		return Json2Object.decode(data, type, limits);
+	}
+
+	public Object read(byte[] data, Type type) {
+		if(type instanceof Class) {
+			return Json2Object.decode(data, (Class<?>) type, limits);
+		}
+		return new Json2Object(data, limits).convert(type);
+	}
+
+	public <T> T read(InputStream in, Class<T> type) throws IOException {
+		return Json2Object.decode(in, type, bufferSize, limits);
+	}
+
+	public Object read(InputStream in, Type type) throws IOException {
+		if(type instanceof Class) {
+			return Json2Object.decode(in, (Class<?>) type, bufferSize, limits);
+		}
+		return new Json2Object(in, bufferSize, limits).convert(type);
+	}
+
+	public byte[] write(Object obj) {
+		return encoder.convert(obj);
+	}
+
+	public byte[] write(Object obj, boolean pretty) {
+		return encoder.convert(obj, pretty);
+	}
+
+	public void write(Object obj, OutputStream out) throws IOException {
+		try {
+			encoder.convert(obj, out);
+		}
+		catch(JSONException exep) {
+			if(exep.getCause() instanceof IOException) {
+				throw (IOException) exep.getCause();
+			}
+			throw exep;
+		}
+	}
+
+	public void write(Object obj, ByteBuffer buf) {
+		encoder.convert(obj, buf);
+	}
+
+	public int write(Object obj, byte[] dest, int offset) {
+		return encoder.convert(obj, dest, offset);
+	}
+}
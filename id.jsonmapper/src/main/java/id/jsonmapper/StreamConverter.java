@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper;
+
+import id.jsonmapper.support.JSONByteWriter;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONTokener;
+
+/**
+ * Converts the value of a field straight from the tokens of the input and into the bytes of the
+ * output, without building an intermediate tree node. Unlike a {@link Converter}, which is applied
+ * to each element of a collection field, a stream converter is handed the whole value of the
+ * field.
+ * <p>
+ * When an object is streamed, the converter reads from and writes to the document being
+ * processed. When it is converted through a tree instead, the converter reads the text of the
+ * tree node and its output is parsed back into a node.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public interface StreamConverter extends FieldConverter {
+
+	/**
+	 * Reads exactly one JSON value from the tokener. An exception thrown while streaming ends the
+	 * decoding of the document.
+	 *
+	 * @param in the tokener, positioned before the value.
+	 * @param type the declared type of the field.
+	 * @return the field value.
+	 * @throws JSONException if the value cannot be read or converted.
+	 */
+
+	<T> T read(JSONTokener in, Class<T> type) throws JSONException;
+
+	/**
+	 * Writes exactly one JSON value. The writer does not add any separators around it.
+	 *
+	 * @param value the field value, never <code>null</code>.
+	 * @param out the writer.
+	 */
+
+	void write(Object value, JSONByteWriter out);
+}
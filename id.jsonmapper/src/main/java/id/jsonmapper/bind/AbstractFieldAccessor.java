@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+/**
+ * Base class for generated field accessors. Subclasses implement the generic variants, and the
+ * typed variants matching the type of the field if it is primitive; all other typed variants
+ * fail with an {@link UnsupportedOperationException}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public abstract class AbstractFieldAccessor implements FieldAccessor {
+
+	@Override
+	public boolean getBoolean(Object target) {
+		throw unsupported("boolean");
+	}
+
+	@Override
+	public void setBoolean(Object target, boolean value) {
+		throw unsupported("boolean");
+	}
+
+	@Override
+	public byte getByte(Object target) {
+		throw unsupported("byte");
+	}
+
+	@Override
+	public void setByte(Object target, byte value) {
+		throw unsupported("byte");
+	}
+
+	@Override
+	public char getChar(Object target) {
+		throw unsupported("char");
+	}
+
+	@Override
+	public void setChar(Object target, char value) {
+		throw unsupported("char");
+	}
+
+	@Override
+	public short getShort(Object target) {
+		throw unsupported("short");
+	}
+
+	@Override
+	public void setShort(Object target, short value) {
+		throw unsupported("short");
+	}
+
+	@Override
+	public int getInt(Object target) {
+		throw unsupported("int");
+	}
+
+	@Override
+	public void setInt(Object target, int value) {
+		throw unsupported("int");
+	}
+
+	@Override
+	public long getLong(Object target) {
+		throw unsupported("long");
+	}
+
+	@Override
+	public void setLong(Object target, long value) {
+		throw unsupported("long");
+	}
+
+	@Override
+	public float getFloat(Object target) {
+		throw unsupported("float");
+	}
+
+	@Override
+	public void setFloat(Object target, float value) {
+		throw unsupported("float");
+	}
+
+	@Override
+	public double getDouble(Object target) {
+		throw unsupported("double");
+	}
+
+	@Override
+	public void setDouble(Object target, double value) {
+		throw unsupported("double");
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static UnsupportedOperationException unsupported(String type) {
+		return new UnsupportedOperationException("not a " + type + " field");
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import id.jsonmapper.JSON;
+import id.jsonmapper.support.KeyTable;
+
+/**
+ * The set of <code>@JSON</code> fields of a class, including those inherited from its superclasses.
+ * A plan is built once per class on first use and is shared by the encoders and decoders across
+ * all threads. Plans are attached to their classes through a {@link ClassValue}, so they do not
+ * prevent a class loader from being collected.
+ * <p>
+ * Type variables in the generic types of inherited fields are resolved against the arguments the
+ * class and its superclasses bind them to.
+ * <p>
+ * The member names of a plan are added to the {@link KeyTable} when the plan is built.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class BindingPlan {
+
+	private static final ClassValue<BindingPlan> PLANS = new ClassValue<BindingPlan>() {
+
+		@Override
+		protected BindingPlan computeValue(Class<?> type) {
+			return new BindingPlan(type);
+		}
+	};
+
+	public static BindingPlan of(Class<?> type) {
+		return PLANS.get(type);
+	}
+
+	private final Class<?>             type;
+	private final List<FieldBinding>   fields;
+	private final Map<String, Integer> memberSlots;
+	private final FieldBinding[][]     members;
+
+	private BindingPlan(Class<?> type) {
+		this.type = type;
+		List<FieldBinding> fieldList = new ArrayList<>();
+		collateAllFields(type, GenericTypes.typeArguments(type), fieldList);
+		fields = Collections.unmodifiableList(fieldList);
+
+		//group the fields by JSON member name, fields sharing a name all receive the same value
+		Map<String, List<FieldBinding>> byName = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		for(FieldBinding binding : fieldList) {
+			List<FieldBinding> named = byName.get(binding.name());
+			if(named == null) {
+				named = new ArrayList<>(1);
+				byName.put(binding.name(), named);
+				names.add(binding.name());
+			}
+			named.add(binding);
+		}
+		memberSlots = new HashMap<>();
+		members = new FieldBinding[names.size()][];
+		for(int i=0; i<members.length; i++) {
+			//parsed keys equal to a member name then share the name's instance
+			KeyTable.seed(names.get(i));
+			memberSlots.put(names.get(i), i);
+			members[i] = byName.get(names.get(i)).toArray(new FieldBinding[0]);
+		}
+	}
+
+	public Class<?> type() {
+		return type;
+	}
+
+	public List<FieldBinding> fields() {
+		return fields;
+	}
+
+	/**
+	 * @return the number of distinct JSON member names mapped by the class.
+	 */
+
+	public int memberCount() {
+		return members.length;
+	}
+
+	/**
+	 * @param name a JSON member name.
+	 * @return the slot of the member, between 0 and {@link #memberCount()} (exclusive), or -1 if no
+	 * field is mapped to the name.
+	 */
+
+	public int memberSlot(String name) {
+		Integer slot = memberSlots.get(name);
+		return (slot != null) ? slot : -1;
+	}
+
+	/**
+	 * @param slot the slot of a member, as obtained from {@link #memberSlot(String)}.
+	 * @return the fields mapped to the member. The array is shared and must not be modified.
+	 */
+
+	public FieldBinding[] membersAt(int slot) {
+		return members[slot];
+	}
+
+	/**
+	 * Creates a new instance of the class, through its generated binding if there is one and
+	 * through the no-argument constructor otherwise.
+	 *
+	 * @return the new instance.
+	 * @throws InstantiationException if the class cannot be instantiated.
+	 * @throws IllegalAccessException if the no-argument constructor is not accessible.
+	 */
+
+	public Object newInstance() throws InstantiationException, IllegalAccessException {
+		CompiledBinding compiled = CompiledBindings.of(type);
+		Object instance = (compiled != null) ? compiled.newInstance() : null;
+		return (instance != null) ? instance : type.newInstance();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void collateAllFields(Class<?> type, Map<TypeVariable<?>, Type> typeArgs,
+			List<FieldBinding> fieldList) {
+		boolean traverse = type.getClassLoader() != null;
+		for(Field field : type.getDeclaredFields()) {
+			if(!Modifier.isStatic(field.getModifiers())) {
+				JSON ann = field.getAnnotation(JSON.class);
+				if(ann != null && ann.value() != null) {
+					fieldList.add(new FieldBinding(field, ann, typeArgs));
+				}
+			}
+		}
+		if(type.getSuperclass() != null && traverse) {
+			collateAllFields(type.getSuperclass(), typeArgs, fieldList);
+		}
+	}
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for Java 8 class files, sufficient for the straight-line codec classes generated
+ * at runtime. Only the handful of instructions needed by the codec generators are supported.
+ * Since the generated methods contain no branches and no exception handlers, no stack map frames
+ * are required. All class, field and method names are in internal form, e.g.
+ * <code>java/lang/Object</code>.
+ * <p>
+ * This class is internal support for the encoders and decoders and is not intended for use by
+ * applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class ClassFileWriter {
+
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_STATIC = 0x0008;
+	public static final int ACC_FINAL  = 0x0010;
+
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int CONSTANT_UTF8        = 1;
+	private static final int CONSTANT_CLASS       = 7;
+	private static final int CONSTANT_STRING      = 8;
+	private static final int CONSTANT_FIELDREF    = 9;
+	private static final int CONSTANT_METHODREF   = 10;
+	private static final int CONSTANT_NAMEANDTYPE = 12;
+
+	private final ByteArrayOutputStream poolBytes;
+	private final DataOutputStream      pool;
+	private final Map<String, Integer>  poolIndex;
+	private int                         poolCount;
+
+	private final int       thisClass;
+	private final int       superClass;
+	private final int[]     interfaces;
+	private final List<int[]> fields;
+	private final List<Code>  methods;
+
+	public ClassFileWriter(String className, String superName, String... interfaceNames) {
+		poolBytes = new ByteArrayOutputStream();
+		pool = new DataOutputStream(poolBytes);
+		poolIndex = new HashMap<>();
+		poolCount = 1;
+
+		thisClass = classRef(className);
+		superClass = classRef(superName);
+		interfaces = new int[interfaceNames.length];
+		for(int i=0; i<interfaceNames.length; i++) {
+			interfaces[i] = classRef(interfaceNames[i]);
+		}
+		fields = new ArrayList<>();
+		methods = new ArrayList<>();
+	}
+
+	public void field(int access, String name, String descriptor) {
+		fields.add(new int[] {access, utf8(name), utf8(descriptor)});
+	}
+
+	public Code method(int access, String name, String descriptor) {
+		Code code = new Code(access, name, descriptor);
+		methods.add(code);
+		return code;
+	}
+
+	public byte[] toByteArray() {
+		try {
+			int codeAttr = utf8("Code");
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bout);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(52);
+			out.writeShort(poolCount);
+			pool.flush();
+			poolBytes.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(interfaces.length);
+			for(int iface : interfaces) {
+				out.writeShort(iface);
+			}
+			out.writeShort(fields.size());
+			for(int[] field : fields) {
+				out.writeShort(field[0]);
+				out.writeShort(field[1]);
+				out.writeShort(field[2]);
+				out.writeShort(0);
+			}
+			out.writeShort(methods.size());
+			for(Code code : methods) {
+				byte[] bytecode = code.bytes.toByteArray();
+				out.writeShort(code.access);
+				out.writeShort(code.nameIdx);
+				out.writeShort(code.descIdx);
+				out.writeShort(1);
+				out.writeShort(codeAttr);
+				out.writeInt(12 + bytecode.length);
+				out.writeShort(code.maxStack);
+				out.writeShort(code.maxLocals);
+				out.writeInt(bytecode.length);
+				out.write(bytecode);
+				out.writeShort(0);
+				out.writeShort(0);
+			}
+			out.writeShort(0);
+			out.flush();
+			return bout.toByteArray();
+		}
+		catch(IOException exep) {
+			//cannot happen with in-memory streams
+			throw new IllegalStateException(exep);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private int utf8(String value) {
+		return constant("U" + value, CONSTANT_UTF8, value, 0, 0);
+	}
+
+	private int classRef(String internalName) {
+		int nameIdx = utf8(internalName);
+		return constant("C" + internalName, CONSTANT_CLASS, null, nameIdx, -1);
+	}
+
+	private int stringRef(String value) {
+		int valueIdx = utf8(value);
+		return constant("S" + value, CONSTANT_STRING, null, valueIdx, -1);
+	}
+
+	private int memberRef(int tag, String owner, String name, String descriptor) {
+		int classIdx = classRef(owner);
+		int natIdx = constant("N" + name + ":" + descriptor, CONSTANT_NAMEANDTYPE, null,
+				utf8(name), utf8(descriptor));
+		return constant("M" + tag + owner + "." + name + ":" + descriptor, tag, null,
+				classIdx, natIdx);
+	}
+
+	private int constant(String key, int tag, String text, int ref1, int ref2) {
+		Integer existing = poolIndex.get(key);
+		if(existing != null) {
+			return existing;
+		}
+		try {
+			pool.writeByte(tag);
+			if(text != null) {
+				pool.writeUTF(text);
+			}
+			else {
+				pool.writeShort(ref1);
+				if(ref2 >= 0) {
+					pool.writeShort(ref2);
+				}
+			}
+		}
+		catch(IOException exep) {
+			throw new IllegalStateException(exep);
+		}
+		int index = poolCount++;
+		if(poolCount > 0xFFFF) {
+			throw new IllegalStateException("constant pool overflow");
+		}
+		poolIndex.put(key, index);
+		return index;
+	}
+
+	private static int slots(String descriptor, boolean returnOnly) {
+		int pos = descriptor.indexOf(')');
+		if(returnOnly) {
+			char ret = descriptor.charAt(pos + 1);
+			return (ret == 'V') ? 0 : (ret == 'J' || ret == 'D') ? 2 : 1;
+		}
+		int count = 0;
+		int i = 1;
+		while(i < pos) {
+			char ch = descriptor.charAt(i);
+			if(ch == 'J' || ch == 'D') {
+				count += 2;
+				i++;
+			}
+			else if(ch == 'L') {
+				count++;
+				i = descriptor.indexOf(';', i) + 1;
+			}
+			else if(ch == '[') {
+				while(descriptor.charAt(i) == '[') {
+					i++;
+				}
+				count++;
+				i = (descriptor.charAt(i) == 'L') ? descriptor.indexOf(';', i) + 1 : i + 1;
+			}
+			else {
+				count++;
+				i++;
+			}
+		}
+		return count;
+	}
+
+	private static int fieldSlots(String descriptor) {
+		char ch = descriptor.charAt(0);
+		return (ch == 'J' || ch == 'D') ? 2 : 1;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that represents the body of a method
+
+	public final class Code {
+
+		private final int                   access;
+		private final int                   nameIdx;
+		private final int                   descIdx;
+		private final ByteArrayOutputStream bytes;
+		private int                         stack;
+		private int                         maxStack;
+		private int                         maxLocals;
+
+		private Code(int access, String name, String descriptor) {
+			this.access = access;
+			nameIdx = utf8(name);
+			descIdx = utf8(descriptor);
+			bytes = new ByteArrayOutputStream();
+			maxLocals = slots(descriptor, false) + (((access & ACC_STATIC) != 0) ? 0 : 1);
+		}
+
+		public Code aload(int local) {
+			emitLocal(0x2A, 0x19, local);
+			push(1);
+			return this;
+		}
+
+		public Code astore(int local) {
+			emitLocal(0x4B, 0x3A, local);
+			push(-1);
+			return this;
+		}
+
+		public Code iconst(int value) {
+			if(value >= -1 && value <= 5) {
+				bytes.write(0x03 + value);
+			}
+			else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				bytes.write(0x10);
+				bytes.write(value);
+			}
+			else {
+				bytes.write(0x11);
+				u2(value);
+			}
+			push(1);
+			return this;
+		}
+
+		public Code ldcString(String value) {
+			return ldc(stringRef(value));
+		}
+
+		public Code ldcClass(String internalName) {
+			return ldc(classRef(internalName));
+		}
+
+		public Code aaload() {
+			bytes.write(0x32);
+			push(-1);
+			return this;
+		}
+
+		public Code dup() {
+			bytes.write(0x59);
+			push(1);
+			return this;
+		}
+
+		public Code newObject(String internalName) {
+			bytes.write(0xBB);
+			u2(classRef(internalName));
+			push(1);
+			return this;
+		}
+
+		public Code checkcast(String internalName) {
+			bytes.write(0xC0);
+			u2(classRef(internalName));
+			return this;
+		}
+
+		public Code getstatic(String owner, String name, String descriptor) {
+			bytes.write(0xB2);
+			u2(memberRef(CONSTANT_FIELDREF, owner, name, descriptor));
+			push(fieldSlots(descriptor));
+			return this;
+		}
+
+		public Code putstatic(String owner, String name, String descriptor) {
+			bytes.write(0xB3);
+			u2(memberRef(CONSTANT_FIELDREF, owner, name, descriptor));
+			push(-fieldSlots(descriptor));
+			return this;
+		}
+
+		public Code invokestatic(String owner, String name, String descriptor) {
+			bytes.write(0xB8);
+			u2(memberRef(CONSTANT_METHODREF, owner, name, descriptor));
+			push(slots(descriptor, true) - slots(descriptor, false));
+			return this;
+		}
+
+		public Code invokespecial(String owner, String name, String descriptor) {
+			bytes.write(0xB7);
+			u2(memberRef(CONSTANT_METHODREF, owner, name, descriptor));
+			push(slots(descriptor, true) - slots(descriptor, false) - 1);
+			return this;
+		}
+
+		public Code pop() {
+			bytes.write(0x57);
+			push(-1);
+			return this;
+		}
+
+		public Code areturn() {
+			bytes.write(0xB0);
+			push(-1);
+			return this;
+		}
+
+		public Code vreturn() {
+			bytes.write(0xB1);
+			return this;
+		}
+
+		private Code ldc(int index) {
+			if(index <= 0xFF) {
+				bytes.write(0x12);
+				bytes.write(index);
+			}
+			else {
+				bytes.write(0x13);
+				u2(index);
+			}
+			push(1);
+			return this;
+		}
+
+		private void emitLocal(int shortForm, int longForm, int local) {
+			if(local <= 3) {
+				bytes.write(shortForm + local);
+			}
+			else {
+				bytes.write(longForm);
+				bytes.write(local);
+			}
+			maxLocals = Math.max(maxLocals, local + 1);
+		}
+
+		private void u2(int value) {
+			bytes.write((value >>> 8) & 0xFF);
+			bytes.write(value & 0xFF);
+		}
+
+		private void push(int delta) {
+			stack += delta;
+			maxStack = Math.max(maxStack, stack);
+		}
+	}
+}
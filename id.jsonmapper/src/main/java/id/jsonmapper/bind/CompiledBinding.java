@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+/**
+ * Direct, reflection-free access to the <code>@JSON</code> fields declared by one class. Instances
+ * are generated at build time by the JSON Mapper annotation processor
+ * (<code>id.jsonmapper.processor</code>), one per class that declares <code>@JSON</code> fields.
+ * The generated class lives in the same package as the mapped class and is named after its binary
+ * name, e.g. <code>a.b.UserProfile_JsonBinding</code> for <code>a.b.UserProfile</code> and
+ * <code>a.b.Outer$Inner_JsonBinding</code> for the nested class <code>a.b.Outer.Inner</code>.
+ * <p>
+ * When a generated binding is present, the mapper uses it to create instances and to read and
+ * write fields, and never needs to make fields accessible. Fields and constructors that generated
+ * code cannot reach, such as private ones or fields whose type is not visible from the package,
+ * are still accessed through method handles.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public interface CompiledBinding {
+
+	/**
+	 * Suffix appended to the binary name of the mapped class to obtain the name of the generated
+	 * binding.
+	 */
+
+	String SUFFIX = "_JsonBinding";
+
+	/**
+	 * @return a new instance of the mapped class, or <code>null</code> if the class cannot be
+	 * instantiated from generated code.
+	 */
+
+	Object newInstance();
+
+	/**
+	 * @param fieldName the Java name of a field declared by the mapped class.
+	 * @return the accessor for the field, or <code>null</code> if the field cannot be accessed from
+	 * generated code.
+	 */
+
+	FieldAccessor accessor(String fieldName);
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Locates the generated {@link CompiledBinding} of a class, if there is one. The binding is found
+ * by name in the class loader of the mapped class, so there is nothing to register or scan. The
+ * result of the lookup is remembered per class.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class CompiledBindings {
+
+	private static final Logger _L = Logger.getLogger(CompiledBindings.class.getName());
+
+	private static final CompiledBinding NONE = new CompiledBinding() {
+
+		@Override
+		public Object newInstance() {
+			return null;
+		}
+
+		@Override
+		public FieldAccessor accessor(String fieldName) {
+			return null;
+		}
+	};
+
+	private static final ClassValue<CompiledBinding> BINDINGS = new ClassValue<CompiledBinding>() {
+
+		@Override
+		protected CompiledBinding computeValue(Class<?> type) {
+			return load(type);
+		}
+	};
+
+	private CompiledBindings() {
+		//static methods only
+	}
+
+	/**
+	 * @param type the mapped class.
+	 * @return the generated binding of the class, or <code>null</code> if there is none.
+	 */
+
+	static CompiledBinding of(Class<?> type) {
+		CompiledBinding binding = BINDINGS.get(type);
+		return (binding != NONE) ? binding : null;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static CompiledBinding load(Class<?> type) {
+		ClassLoader loader = type.getClassLoader();
+		if(loader == null || type.isArray() || type.isPrimitive()) {
+			return NONE;
+		}
+		String name = type.getName() + CompiledBinding.SUFFIX;
+		try {
+			Class<?> bindingClass = Class.forName(name, true, loader);
+			return (CompiledBinding) bindingClass.newInstance();
+		}
+		catch(ClassNotFoundException exep) {
+			return NONE;
+		}
+		catch(ReflectiveOperationException | ClassCastException | LinkageError exep) {
+			_L.log(Level.FINE, "unable to load generated binding " + name, exep);
+			return NONE;
+		}
+	}
+}
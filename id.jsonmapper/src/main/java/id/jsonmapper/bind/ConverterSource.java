@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import id.jsonmapper.FieldConverter;
+import id.jsonmapper.ThreadSafe;
+
+/**
+ * Creates the instances of a converter class. A converter annotated with {@link ThreadSafe} is
+ * instantiated once, on first use, and the instance is shared. Any other converter is lent to one
+ * caller at a time from a small pool, and instantiated when no idle instance is left. Sources are
+ * attached to the converter classes through a {@link ClassValue}, so the instances are the same for
+ * every field, and they go away with the converter class. A failed instantiation is not remembered
+ * and is attempted again on the next use.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class ConverterSource {
+
+	private static final ClassValue<ConverterSource> SOURCES = new ClassValue<ConverterSource>() {
+
+		@Override
+		protected ConverterSource computeValue(Class<?> type) {
+			return new ConverterSource(type.asSubclass(FieldConverter.class));
+		}
+	};
+
+	static ConverterSource of(Class<? extends FieldConverter> type) {
+		return SOURCES.get(type);
+	}
+
+	/**
+	 * The number of idle instances of a converter that is not thread-safe kept for reuse.
+	 */
+
+	private static final int POOL_SIZE = 8;
+
+	private final Class<? extends FieldConverter> type;
+	private final boolean                         threadSafe;
+	private volatile FieldConverter               shared;
+	private final FieldConverter[]                pool;
+	private int                                   pooled;
+
+	private ConverterSource(Class<? extends FieldConverter> type) {
+		this.type = type;
+		threadSafe = type.isAnnotationPresent(ThreadSafe.class);
+		pool = threadSafe ? null : new FieldConverter[POOL_SIZE];
+	}
+
+	/**
+	 * Provides an instance for the exclusive use of the caller until it is handed back through
+	 * {@link #release(FieldConverter)}. This is the shared instance for a thread-safe converter.
+	 *
+	 * @return an idle instance from the pool, or a new one if the pool is empty.
+	 */
+
+	FieldConverter acquire() throws ReflectiveOperationException {
+		if(threadSafe) {
+			return sharedInstance();
+		}
+		synchronized(this) {
+			if(pooled > 0) {
+				FieldConverter conv = pool[--pooled];
+				pool[pooled] = null;
+				return conv;
+			}
+		}
+		return type.newInstance();
+	}
+
+	/**
+	 * Returns an instance obtained from {@link #acquire()} to the pool. The instance is dropped if
+	 * the pool is full.
+	 */
+
+	void release(FieldConverter conv) {
+		if(threadSafe || conv == null) {
+			return;
+		}
+		synchronized(this) {
+			if(pooled < pool.length) {
+				pool[pooled++] = conv;
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private FieldConverter sharedInstance() throws ReflectiveOperationException {
+		FieldConverter conv = shared;
+		if(conv == null) {
+			synchronized(this) {
+				conv = shared;
+				if(conv == null) {
+					conv = type.newInstance();
+					shared = conv;
+				}
+			}
+		}
+		return conv;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+/**
+ * Reads and writes the value of one field on instances of its declaring class. The typed variants
+ * operate on fields of the matching primitive type without boxing; the generic variants work for
+ * any field type and box primitive values. Implementations are safe for concurrent use.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public interface FieldAccessor {
+
+	Object get(Object target);
+
+	void set(Object target, Object value);
+
+	boolean getBoolean(Object target);
+
+	void setBoolean(Object target, boolean value);
+
+	byte getByte(Object target);
+
+	void setByte(Object target, byte value);
+
+	char getChar(Object target);
+
+	void setChar(Object target, char value);
+
+	short getShort(Object target);
+
+	void setShort(Object target, short value);
+
+	int getInt(Object target);
+
+	void setInt(Object target, int value);
+
+	long getLong(Object target);
+
+	void setLong(Object target, long value);
+
+	float getFloat(Object target);
+
+	void setFloat(Object target, float value);
+
+	double getDouble(Object target);
+
+	void setDouble(Object target, double value);
+}
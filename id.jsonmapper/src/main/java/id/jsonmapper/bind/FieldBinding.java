@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+
+import id.jsonmapper.ConvertUsing;
+import id.jsonmapper.Dedup;
+import id.jsonmapper.FieldConverter;
+import id.jsonmapper.JSON;
+import id.jsonmapper.Raw;
+import id.jsonmapper.StreamConverter;
+import id.jsonmapper.support.StringCache;
+
+/**
+ * Immutable description of a single <code>@JSON</code> field, with its annotations already read and
+ * its type already classified.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class FieldBinding {
+
+	private final Field                           field;
+	private final String                          name;
+	private final Class<?>                        type;
+	private final Type                            genericType;
+	private final TypeShape                       shape;
+	private final FieldKind                       kind;
+	private final boolean                         raw;
+	private final Class<? extends FieldConverter> convType;
+	private final ConverterSource                 convSource;
+	private final StringCache                     stringCache;
+	private final FieldAccessor                   accessor;
+	private final MethodHandle                    getter;
+	private final MethodHandle                    setter;
+
+	FieldBinding(Field field, JSON ann, Map<TypeVariable<?>, Type> typeArgs) {
+		this.field = field;
+		name = ann.value();
+		type = field.getType();
+		genericType = GenericTypes.resolve(field.getGenericType(), typeArgs);
+		shape = TypeShape.of(genericType);
+		kind = FieldKind.of(type);
+
+		raw = field.getAnnotation(Raw.class) != null
+				&& (type.equals(String.class) || type.equals(byte[].class));
+
+		ConvertUsing cuann = field.getAnnotation(ConvertUsing.class);
+		convType = (cuann != null) ? cuann.value() : null;
+		convSource = (convType != null) ? ConverterSource.of(convType) : null;
+
+		Dedup dann = field.getAnnotation(Dedup.class);
+		stringCache = (dann != null && type.equals(String.class))
+				? new StringCache(dann.capacity()) : null;
+
+		CompiledBinding compiled = CompiledBindings.of(field.getDeclaringClass());
+		FieldAccessor fieldAcc = (compiled != null) ? compiled.accessor(field.getName()) : null;
+		if(fieldAcc != null) {
+			accessor = fieldAcc;
+			getter = accessorHandle(fieldAcc, "get",
+					MethodType.methodType(valueType(), Object.class));
+			setter = accessorHandle(fieldAcc, "set",
+					MethodType.methodType(void.class, Object.class, valueType()));
+		}
+		else {
+			MethodHandleAccessor mhAcc = new MethodHandleAccessor(field);
+			accessor = mhAcc;
+			getter = mhAcc.typedGetter();
+			setter = mhAcc.typedSetter();
+		}
+	}
+
+	public Field field() {
+		return field;
+	}
+
+	/**
+	 * @return the JSON member name of the field.
+	 */
+
+	public String name() {
+		return name;
+	}
+
+	public Class<?> type() {
+		return type;
+	}
+
+	/**
+	 * @return the generic type of the field, with the type variables bound by the superclasses of
+	 * the bound class substituted by their arguments.
+	 */
+
+	public Type genericType() {
+		return genericType;
+	}
+
+	/**
+	 * @return the shape of the generic type of the field.
+	 */
+
+	public TypeShape shape() {
+		return shape;
+	}
+
+	public FieldKind kind() {
+		return kind;
+	}
+
+	/**
+	 * @return <code>true</code> if the field is annotated with <code>@Raw</code> and is of a type
+	 * that can hold raw JSON text.
+	 */
+
+	public boolean isRaw() {
+		return raw;
+	}
+
+	/**
+	 * @return the converter type declared through <code>@ConvertUsing</code>, or
+	 * <code>null</code> if there is none.
+	 */
+
+	public Class<? extends FieldConverter> converterType() {
+		return convType;
+	}
+
+	/**
+	 * @return <code>true</code> if the converter declared through <code>@ConvertUsing</code> is a
+	 * {@link StreamConverter}.
+	 */
+
+	public boolean hasStreamConverter() {
+		return convType != null && StreamConverter.class.isAssignableFrom(convType);
+	}
+
+	/**
+	 * Provides the converter declared through <code>@ConvertUsing</code>, to be handed back through
+	 * {@link #releaseConverter(FieldConverter)} once the value is converted. The instance is shared
+	 * by all threads if the converter class is annotated with <code>@ThreadSafe</code>. Otherwise it
+	 * is used by the caller alone until it is released, and then reused by later conversions.
+	 *
+	 * @return the converter, or <code>null</code> if there is none.
+	 * @throws ReflectiveOperationException if the converter cannot be instantiated.
+	 */
+
+	public FieldConverter acquireConverter() throws ReflectiveOperationException {
+		return (convSource != null) ? convSource.acquire() : null;
+	}
+
+	/**
+	 * Hands back a converter obtained from {@link #acquireConverter()}.
+	 */
+
+	public void releaseConverter(FieldConverter conv) {
+		if(convSource != null) {
+			convSource.release(conv);
+		}
+	}
+
+	/**
+	 * @return the cache that decoded values of the field are passed through, if the field is a
+	 * <code>String</code> annotated with <code>@Dedup</code>, or <code>null</code> otherwise.
+	 */
+
+	public StringCache stringCache() {
+		return stringCache;
+	}
+
+	/**
+	 * @return the accessor used to read and write the field value.
+	 */
+
+	public FieldAccessor accessor() {
+		return accessor;
+	}
+
+	/**
+	 * Provides the getter as a method handle of type <code>(Object)T</code>, where <code>T</code> is
+	 * the field type if it is primitive, or <code>Object</code> otherwise. Used by the codec
+	 * generators to embed the handle as a constant. If the class has a compiled binding, the
+	 * handle calls the generated accessor.
+	 *
+	 * @return the getter handle.
+	 */
+
+	public MethodHandle getterHandle() {
+		return getter;
+	}
+
+	/**
+	 * Provides the setter as a method handle of type <code>(Object,T)void</code>, where
+	 * <code>T</code> is the field type if it is primitive, or <code>Object</code> otherwise. If the
+	 * class has a compiled binding, the handle calls the generated accessor.
+	 *
+	 * @return the setter handle.
+	 */
+
+	public MethodHandle setterHandle() {
+		return setter;
+	}
+
+	@Override
+	public String toString() {
+		return field.getDeclaringClass().getName() + "." + field.getName() + " <-> " + name;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private Class<?> valueType() {
+		return type.isPrimitive() ? type : Object.class;
+	}
+
+	/**
+	 * Binds the typed accessor method of the given kind, such as <code>getInt</code> for an
+	 * <code>int</code> field, to the accessor instance.
+	 */
+
+	private MethodHandle accessorHandle(FieldAccessor acc, String prefix, MethodType handleType) {
+		String typeName = type.getName();
+		String methodName = type.isPrimitive()
+				? prefix + Character.toUpperCase(typeName.charAt(0)) + typeName.substring(1) : prefix;
+		try {
+			return MethodHandles.publicLookup().findVirtual(FieldAccessor.class, methodName,
+					handleType).bindTo(acc);
+		}
+		catch(ReflectiveOperationException exep) {
+			throw new IllegalStateException("unable to access field " + field, exep);
+		}
+	}
+}
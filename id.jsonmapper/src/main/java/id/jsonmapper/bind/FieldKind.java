@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The category of a mapped field, resolved once from its declared type. Encoders and decoders
+ * switch on the kind instead of re-testing the field type on every conversion.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public enum FieldKind {
+
+	BOOLEAN,
+	BYTE,
+	CHAR,
+	SHORT,
+	INT,
+	LONG,
+	FLOAT,
+	DOUBLE,
+	STRING,
+	BIG_DECIMAL,
+	BIG_INTEGER,
+	ARRAY,
+	LIST,
+	SET,
+	MAP,
+	OBJECT;
+
+	public boolean isPrimitive() {
+		return ordinal() <= DOUBLE.ordinal();
+	}
+
+	public static FieldKind of(Class<?> type) {
+		if(type.equals(Boolean.TYPE) || type.equals(Boolean.class)) {
+			return BOOLEAN;
+		}
+		if(type.equals(Byte.TYPE) || type.equals(Byte.class)) {
+			return BYTE;
+		}
+		if(type.equals(Character.TYPE) || type.equals(Character.class)) {
+			return CHAR;
+		}
+		if(type.equals(Short.TYPE) || type.equals(Short.class)) {
+			return SHORT;
+		}
+		if(type.equals(Integer.TYPE) || type.equals(Integer.class)) {
+			return INT;
+		}
+		if(type.equals(Long.TYPE) || type.equals(Long.class)) {
+			return LONG;
+		}
+		if(type.equals(Float.TYPE) || type.equals(Float.class)) {
+			return FLOAT;
+		}
+		if(type.equals(Double.TYPE) || type.equals(Double.class)) {
+			return DOUBLE;
+		}
+		if(type.equals(String.class)) {
+			return STRING;
+		}
+		if(type.equals(BigDecimal.class)) {
+			return BIG_DECIMAL;
+		}
+		if(type.equals(BigInteger.class)) {
+			return BIG_INTEGER;
+		}
+		if(type.isArray()) {
+			return ARRAY;
+		}
+		if(List.class.isAssignableFrom(type)) {
+			return LIST;
+		}
+		if(Set.class.isAssignableFrom(type)) {
+			return SET;
+		}
+		if(Map.class.isAssignableFrom(type)) {
+			return MAP;
+		}
+		return OBJECT;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+/**
+ * Defines a single generated codec class and hands over its constants. Each generated class gets
+ * its own loader, so the class and everything it refers to can be collected together with the
+ * mapped type it was generated for.
+ * <p>
+ * The constants (method handles and the like) are fetched exactly once by the static initializer
+ * of the generated class, which stores them in <code>static final</code> fields where the JIT
+ * compiler treats them as true constants.
+ * <p>
+ * This class is internal support for the encoders and decoders and is not intended for use by
+ * applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class GeneratedClassLoader extends ClassLoader {
+
+	private Object[] constants;
+
+	private GeneratedClassLoader(ClassLoader parent, Object[] constants) {
+		super(parent);
+		this.constants = constants;
+	}
+
+	/**
+	 * Defines and initializes a generated class.
+	 *
+	 * @param className the binary name of the class, e.g. <code>a.b.Foo</code>.
+	 * @param bytecode the class file contents.
+	 * @param constants the values to be handed over to the static initializer of the class.
+	 * @param parent the loader used to resolve the types the generated class refers to.
+	 * @return the initialized class.
+	 * @throws ClassNotFoundException if the class could not be initialized.
+	 */
+
+	public static Class<?> define(String className, byte[] bytecode, Object[] constants,
+			ClassLoader parent) throws ClassNotFoundException {
+		GeneratedClassLoader loader = new GeneratedClassLoader(parent, constants);
+		loader.defineClass(className, bytecode, 0, bytecode.length);
+		return Class.forName(className, true, loader);
+	}
+
+	/**
+	 * Called from the static initializer of a generated class. The constants can be taken only
+	 * once; subsequent calls fail.
+	 *
+	 * @param cls the generated class.
+	 * @return the constants supplied when the class was defined.
+	 */
+
+	public static Object[] constantsFor(Class<?> cls) {
+		ClassLoader loader = cls.getClassLoader();
+		if(!(loader instanceof GeneratedClassLoader)) {
+			throw new IllegalArgumentException("not a generated class: " + cls.getName());
+		}
+		GeneratedClassLoader genLoader = (GeneratedClassLoader) loader;
+		synchronized(genLoader) {
+			Object[] result = genLoader.constants;
+			if(result == null) {
+				throw new IllegalStateException("constants already taken: " + cls.getName());
+			}
+			genLoader.constants = null;
+			return result;
+		}
+	}
+}
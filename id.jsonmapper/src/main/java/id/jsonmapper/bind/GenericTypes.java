@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Resolves the type variables of generic field types. The parameterized and array types built for
+ * resolved types compare equal to, and hash the same as, the instances produced by the reflection
+ * API.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class GenericTypes {
+
+	private GenericTypes() {
+		//static methods only
+	}
+
+	/**
+	 * Collects the type arguments bound to the type variables of the superclasses of the given
+	 * class, as declared along its superclass chain.
+	 *
+	 * @return a map from each bound type variable to its argument, resolved as far as the chain
+	 *         allows.
+	 */
+
+	static Map<TypeVariable<?>, Type> typeArguments(Class<?> type) {
+		Map<TypeVariable<?>, Type> typeArgs = null;
+		for(Class<?> cls=type; cls != null; cls=cls.getSuperclass()) {
+			Type superType = cls.getGenericSuperclass();
+			if(!(superType instanceof ParameterizedType)) {
+				continue;
+			}
+			ParameterizedType pmzType = (ParameterizedType) superType;
+			TypeVariable<?>[] vars = ((Class<?>) pmzType.getRawType()).getTypeParameters();
+			Type[] args = pmzType.getActualTypeArguments();
+			if(typeArgs == null) {
+				typeArgs = new HashMap<>();
+			}
+			for(int i=0; i<vars.length && i<args.length; i++) {
+				typeArgs.put(vars[i], resolve(args[i], typeArgs));
+			}
+		}
+		return (typeArgs != null) ? typeArgs : Collections.<TypeVariable<?>, Type>emptyMap();
+	}
+
+	/**
+	 * Substitutes the given arguments for the type variables in a type. Variables without an
+	 * argument are left in place.
+	 */
+
+	static Type resolve(Type type, Map<TypeVariable<?>, Type> typeArgs) {
+		if(typeArgs.isEmpty() || type instanceof Class) {
+			return type;
+		}
+		if(type instanceof TypeVariable) {
+			Type arg = typeArgs.get(type);
+			return (arg != null) ? arg : type;
+		}
+		if(type instanceof ParameterizedType) {
+			ParameterizedType pmzType = (ParameterizedType) type;
+			Type[] args = pmzType.getActualTypeArguments();
+			boolean changed = false;
+			for(int i=0; i<args.length; i++) {
+				Type arg = resolve(args[i], typeArgs);
+				changed |= arg != args[i];
+				args[i] = arg;
+			}
+			return changed ? new ParameterizedTypeImpl(pmzType.getRawType(), args,
+					pmzType.getOwnerType()) : type;
+		}
+		if(type instanceof GenericArrayType) {
+			Type compType = ((GenericArrayType) type).getGenericComponentType();
+			Type resolved = resolve(compType, typeArgs);
+			return (resolved != compType) ? arrayOf(resolved) : type;
+		}
+		return type;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static Type arrayOf(Type compType) {
+		if(compType instanceof Class) {
+			return Array.newInstance((Class<?>) compType, 0).getClass();
+		}
+		return new GenericArrayTypeImpl(compType);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes that represent resolved generic types
+
+	private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+		private final Type   rawType;
+		private final Type[] typeArgs;
+		private final Type   ownerType;
+
+		ParameterizedTypeImpl(Type rawType, Type[] typeArgs, Type ownerType) {
+			this.rawType = rawType;
+			this.typeArgs = typeArgs;
+			this.ownerType = ownerType;
+		}
+
+		@Override
+		public Type[] getActualTypeArguments() {
+			return typeArgs.clone();
+		}
+
+		@Override
+		public Type getRawType() {
+			return rawType;
+		}
+
+		@Override
+		public Type getOwnerType() {
+			return ownerType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof ParameterizedType)) {
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) obj;
+			return Objects.equals(rawType, other.getRawType())
+					&& Objects.equals(ownerType, other.getOwnerType())
+					&& Arrays.equals(typeArgs, other.getActualTypeArguments());
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(typeArgs) ^ Objects.hashCode(ownerType)
+					^ Objects.hashCode(rawType);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(rawType.getTypeName()).append('<');
+			for(int i=0; i<typeArgs.length; i++) {
+				sb.append((i > 0) ? ", " : "").append(typeArgs[i].getTypeName());
+			}
+			return sb.append('>').toString();
+		}
+	}
+
+	private static final class GenericArrayTypeImpl implements GenericArrayType {
+
+		private final Type compType;
+
+		GenericArrayTypeImpl(Type compType) {
+			this.compType = compType;
+		}
+
+		@Override
+		public Type getGenericComponentType() {
+			return compType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof GenericArrayType)
+					&& Objects.equals(compType, ((GenericArrayType) obj).getGenericComponentType());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(compType);
+		}
+
+		@Override
+		public String toString() {
+			return compType.getTypeName() + "[]";
+		}
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * A {@link FieldAccessor} backed by method handles. The field is made accessible exactly once, when
+ * the handles are resolved; from then on no accessibility flags are touched, so concurrent reads
+ * and writes of the same field cannot interfere with each other.
+ * <p>
+ * The typed handles match the primitive type of the field exactly and are invoked without boxing.
+ * Calling a typed method that does not match the field type fails with a
+ * {@link java.lang.invoke.WrongMethodTypeException}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class MethodHandleAccessor implements FieldAccessor {
+
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+	private final MethodHandle typedGetter;
+	private final MethodHandle typedSetter;
+
+	MethodHandleAccessor(Field field) {
+		Class<?> type = field.getType();
+		MethodHandle rawGetter;
+		MethodHandle rawSetter;
+		try {
+			field.setAccessible(true);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			rawGetter = lookup.unreflectGetter(field);
+			rawSetter = lookup.unreflectSetter(field);
+		}
+		catch(IllegalAccessException exep) {
+			throw new IllegalStateException("unable to access field " + field, exep);
+		}
+
+		getter = rawGetter.asType(MethodType.methodType(Object.class, Object.class));
+		setter = rawSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		if(type.isPrimitive()) {
+			typedGetter = rawGetter.asType(MethodType.methodType(type, Object.class));
+			typedSetter = rawSetter.asType(MethodType.methodType(void.class, Object.class, type));
+		}
+		else {
+			typedGetter = getter;
+			typedSetter = setter;
+		}
+	}
+
+	/**
+	 * @return the getter handle of type <code>(Object)T</code>, where <code>T</code> is the field
+	 * type if it is primitive, or <code>Object</code> otherwise.
+	 */
+
+	MethodHandle typedGetter() {
+		return typedGetter;
+	}
+
+	/**
+	 * @return the setter handle of type <code>(Object,T)void</code>, where <code>T</code> is the
+	 * field type if it is primitive, or <code>Object</code> otherwise.
+	 */
+
+	MethodHandle typedSetter() {
+		return typedSetter;
+	}
+
+	@Override
+	public Object get(Object target) {
+		try {
+			return getter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void set(Object target, Object value) {
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(Object target) {
+		try {
+			return (boolean) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setBoolean(Object target, boolean value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public byte getByte(Object target) {
+		try {
+			return (byte) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setByte(Object target, byte value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public char getChar(Object target) {
+		try {
+			return (char) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setChar(Object target, char value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public short getShort(Object target) {
+		try {
+			return (short) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setShort(Object target, short value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public int getInt(Object target) {
+		try {
+			return (int) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setInt(Object target, int value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public long getLong(Object target) {
+		try {
+			return (long) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setLong(Object target, long value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public float getFloat(Object target) {
+		try {
+			return (float) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setFloat(Object target, float value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public double getDouble(Object target) {
+		try {
+			return (double) typedGetter.invokeExact(target);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	@Override
+	public void setDouble(Object target, double value) {
+		try {
+			typedSetter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static RuntimeException rethrow(Throwable th) {
+		if(th instanceof RuntimeException) {
+			return (RuntimeException) th;
+		}
+		if(th instanceof Error) {
+			throw (Error) th;
+		}
+		//field handles do not throw checked exceptions
+		return new IllegalStateException(th);
+	}
+}
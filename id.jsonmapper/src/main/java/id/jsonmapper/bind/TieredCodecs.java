@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of how often each type is converted and switches a type over to a generated codec
+ * once it has been used often enough. Until then, and for good if generation fails, the lookup
+ * yields <code>null</code> and the caller stays on the reflective path.
+ * <p>
+ * Code generation is optional and disabled by default. It is enabled by setting the system
+ * property <code>id.jsonmapper.codegen.threshold</code> to the number of conversions after which
+ * a type is compiled.
+ * <p>
+ * This class is internal support for the encoders and decoders and is not intended for use by
+ * applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class TieredCodecs<T> {
+
+	private static final Logger _L = Logger.getLogger(TieredCodecs.class.getName());
+
+	public static final String THRESHOLD_PROPERTY = "id.jsonmapper.codegen.threshold";
+
+	private static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 0);
+
+	public interface Generator<T> {
+
+		T generate(Class<?> type) throws Exception;
+	}
+
+	private final Generator<T>   generator;
+	private final ClassValue<Tier> tiers;
+
+	public TieredCodecs(Generator<T> generator) {
+		this.generator = generator;
+		tiers = new ClassValue<Tier>() {
+
+			@Override
+			protected Tier computeValue(Class<?> type) {
+				return new Tier(type);
+			}
+		};
+	}
+
+	public static boolean isEnabled() {
+		return THRESHOLD > 0;
+	}
+
+	/**
+	 * Counts one use of the given type.
+	 *
+	 * @param type the type being converted.
+	 * @return the generated codec for the type, or <code>null</code> if the reflective path is to
+	 * be used.
+	 */
+
+	public T lookup(Class<?> type) {
+		if(THRESHOLD <= 0) {
+			return null;
+		}
+		return tiers.get(type).use();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that tracks the state of one type
+
+	private class Tier {
+
+		private final Class<?> type;
+		private int            uses;
+		private volatile T     codec;
+		private volatile boolean failed;
+
+		Tier(Class<?> type) {
+			this.type = type;
+		}
+
+		T use() {
+			T result = codec;
+			if(result != null || failed) {
+				return result;
+			}
+			//a racy count is good enough to decide when to compile
+			if(++uses < THRESHOLD) {
+				return null;
+			}
+			synchronized(this) {
+				if(codec == null && !failed) {
+					try {
+						codec = generator.generate(type);
+					}
+					catch(Exception | LinkageError exep) {
+						failed = true;
+						_L.log(Level.FINE, "unable to generate codec for " + type.getName()
+								+ ", staying on reflection", exep);
+					}
+				}
+				return codec;
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * A generic type taken apart once for the collection decoders: the raw type, and the shapes of
+ * the element type of a single-argument collection, of the value type of a map keyed by strings,
+ * or of the component type of a generic array. Only the arguments that the decoders can handle, a
+ * class or a parameterized type, are kept; any other argument leaves the corresponding shape
+ * <code>null</code>.
+ * <p>
+ * Shapes are not cached here, as a global cache keyed by type would keep the classes, and their
+ * class loaders, reachable for the life of the process. A field keeps the shape of its type in its
+ * {@link FieldBinding}, so it is built once for each bound class and goes away with it.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class TypeShape {
+
+	/**
+	 * @return the shape of the given type. Type variables in the type are not resolved.
+	 */
+
+	public static TypeShape of(Type type) {
+		return new TypeShape(type);
+	}
+
+	private final Type      type;
+	private final Class<?>  rawType;
+	private final TypeShape element;
+	private final TypeShape value;
+	private final TypeShape component;
+
+	private TypeShape(Type type) {
+		this.type = type;
+		TypeShape elemShape = null;
+		TypeShape valueShape = null;
+		TypeShape compShape = null;
+		Class<?> raw = null;
+
+		if(type instanceof Class) {
+			raw = (Class<?>) type;
+		}
+		else if(type instanceof ParameterizedType) {
+			ParameterizedType pmzType = (ParameterizedType) type;
+			if(pmzType.getRawType() instanceof Class) {
+				raw = (Class<?>) pmzType.getRawType();
+			}
+			Type[] typeArgs = pmzType.getActualTypeArguments();
+			if(typeArgs.length == 1 && isDecodable(typeArgs[0])) {
+				elemShape = of(typeArgs[0]);
+			}
+			else if(typeArgs.length == 2 && typeArgs[0].equals(String.class)
+					&& isDecodable(typeArgs[1])) {
+				valueShape = of(typeArgs[1]);
+			}
+		}
+		else if(type instanceof GenericArrayType) {
+			Type compType = ((GenericArrayType) type).getGenericComponentType();
+			if(compType instanceof ParameterizedType) {
+				compShape = of(compType);
+			}
+		}
+
+		rawType = raw;
+		element = elemShape;
+		value = valueShape;
+		component = compShape;
+	}
+
+	public Type type() {
+		return type;
+	}
+
+	/**
+	 * @return the type itself if it is a class, the raw type if it is a parameterized type, or
+	 *         <code>null</code> otherwise.
+	 */
+
+	public Class<?> rawType() {
+		return rawType;
+	}
+
+	/**
+	 * @return true if the type is a class.
+	 */
+
+	public boolean isClass() {
+		return type instanceof Class;
+	}
+
+	/**
+	 * @return the shape of the only type argument, or <code>null</code> if the type does not have
+	 *         exactly one argument that is a class or a parameterized type.
+	 */
+
+	public TypeShape element() {
+		return element;
+	}
+
+	/**
+	 * @return the shape of the second type argument if the first one is <code>String</code>, or
+	 *         <code>null</code> if the type is not of this form or the second argument is neither a
+	 *         class nor a parameterized type.
+	 */
+
+	public TypeShape value() {
+		return value;
+	}
+
+	/**
+	 * @return the shape of the component type of a generic array, or <code>null</code> if the
+	 *         type is not a generic array of a parameterized type.
+	 */
+
+	public TypeShape component() {
+		return component;
+	}
+
+	@Override
+	public String toString() {
+		return type.getTypeName();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static boolean isDecodable(Type typeArg) {
+		return (typeArg instanceof Class) || (typeArg instanceof ParameterizedType);
+	}
+}
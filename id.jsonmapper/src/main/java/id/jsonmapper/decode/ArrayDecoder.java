@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import id.jsonmapper.Converter;
+import id.jsonmapper.bind.TypeShape;
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class ArrayDecoder extends LinearCollectionDecoder {
+
+	private DecoderRegistry decoderReg;
+
+	public ArrayDecoder(DecoderRegistry reg) {
+		super(reg);
+		decoderReg = reg;
+	}
+
+	/**
+	 * @return an array of the given type, allocated once with the length of the JSON array and
+	 *         filled in place.
+	 */
+
+	public Object convert(JSONArray jsonArr, TypeShape shape, Converter conv) {
+		if(shape.isClass()) {
+			return convert(jsonArr, shape.rawType(), conv);
+		}
+		if(shape.component() != null) {
+			return convertGenericArrayType(jsonArr, shape.component());
+		}
+		return null;
+	}
+
+	public Object convert(JSONArray jsonArr, Class<?> clsType, Converter conv) {
+		return convertClassType(jsonArr, clsType, conv);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private Object[] convertGenericArrayType(JSONArray jsonArr, TypeShape compShape) {
+		Class<?> rawType = compShape.rawType();
+		int length = jsonArr.length();
+		if(List.class.equals(rawType)) {
+			List<?>[] result = new List<?>[length];
+			for(int i=0; i<length; i++) {
+				JSONArray subArr = jsonArr.getJSONArray(i);
+				result[i] = decoderReg.listDecoder().convertList(subArr, compShape, null);
+			}
+			return result;
+		}
+		else if(Set.class.equals(rawType)) {
+			Set<?>[] result = new Set<?>[length];
+			for(int i=0; i<length; i++) {
+				JSONArray subArr = jsonArr.getJSONArray(i);
+				result[i] = decoderReg.listDecoder().convertSet(subArr, compShape, null);
+			}
+			return result;
+		}
+		else if(Map.class.equals(rawType)) {
+			Map<?, ?>[] result = new Map<?, ?>[length];
+			for(int i=0; i<length; i++) {
+				JSONObject subJson = jsonArr.getJSONObject(i);
+				result[i] = decoderReg.mapDecoder().convert(subJson, compShape, null);
+			}
+			return result;
+		}
+		return (Object[]) Array.newInstance(rawType, 0);
+	}
+
+	private Object convertClassType(JSONArray jsonArr, Class<?> clsType, Converter conv) {
+		PrimitiveArrayDecoder primDecoder = PrimitiveArrayDecoder.of(clsType);
+		if(primDecoder != null && conv == null) {
+			return primDecoder.convert(jsonArr);
+		}
+
+		Class<?> compType = clsType.getComponentType();
+		int length = jsonArr.length();
+		Object result = Array.newInstance(compType, length);
+		if(compType.isPrimitive()) {
+			//elements produced by the converter are boxed
+			for(int i=0; i<length; i++) {
+				Array.set(result, i, convertOne(jsonArr, i, compType, conv));
+			}
+		}
+		else {
+			Object[] items = (Object[]) result;
+			for(int i=0; i<length; i++) {
+				items[i] = convertOne(jsonArr, i, compType, conv);
+			}
+		}
+		return result;
+	}
+}
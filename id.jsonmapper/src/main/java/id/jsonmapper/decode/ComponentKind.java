@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * The category of the component type of an array, list or set, or of the value type of a map. The
+ * kind is computed once per class and attached to it through a {@link ClassValue}, so decoding a
+ * collection dispatches each element by a single switch instead of re-testing the component type.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+enum ComponentKind {
+
+	BOOLEAN,
+	BYTE,
+	CHAR,
+	SHORT,
+	INT,
+	LONG,
+	FLOAT,
+	DOUBLE,
+	NUMBER,
+	STRING,
+	BIG_DECIMAL,
+	BIG_INTEGER,
+	ARRAY,
+	OBJECT,
+	ABSTRACT;
+
+	private static final ClassValue<ComponentKind> KINDS = new ClassValue<ComponentKind>() {
+
+		@Override
+		protected ComponentKind computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+	public static ComponentKind of(Class<?> type) {
+		return KINDS.get(type);
+	}
+
+	/**
+	 * @return true if objects of the component type can be instantiated and decoded field by field.
+	 */
+
+	public static boolean isConcrete(Class<?> type) {
+		return !type.isInterface() && !Modifier.isAbstract(type.getModifiers());
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static ComponentKind resolve(Class<?> type) {
+		if(type.equals(Boolean.TYPE) || type.equals(Boolean.class)) {
+			return BOOLEAN;
+		}
+		if(type.equals(Byte.TYPE) || type.equals(Byte.class)) {
+			return BYTE;
+		}
+		if(type.equals(Character.TYPE) || type.equals(Character.class)) {
+			return CHAR;
+		}
+		if(type.equals(Short.TYPE) || type.equals(Short.class)) {
+			return SHORT;
+		}
+		if(type.equals(Integer.TYPE) || type.equals(Integer.class)) {
+			return INT;
+		}
+		if(type.equals(Long.TYPE) || type.equals(Long.class)) {
+			return LONG;
+		}
+		if(type.equals(Float.TYPE) || type.equals(Float.class)) {
+			return FLOAT;
+		}
+		if(type.equals(Double.TYPE) || type.equals(Double.class)) {
+			return DOUBLE;
+		}
+		if(type.equals(Number.class)) {
+			return NUMBER;
+		}
+		if(type.equals(String.class)) {
+			return STRING;
+		}
+		if(type.equals(BigDecimal.class)) {
+			return BIG_DECIMAL;
+		}
+		if(type.equals(BigInteger.class)) {
+			return BIG_INTEGER;
+		}
+		if(type.isArray()) {
+			return ARRAY;
+		}
+		return isConcrete(type) ? OBJECT : ABSTRACT;
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.invoke.MethodHandle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * The building blocks called by generated decoders, one call per mapped field. Each step mirrors
+ * the behavior of {@link FieldDecoder} for the corresponding field type. The method handles are
+ * constants of the generated class; once a step is inlined into it the JIT compiler reduces the
+ * handle invocation to a plain field store.
+ * <p>
+ * This class is internal support for the decoders and is not intended for use by applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class DecodeSteps {
+
+	private static final Logger _L = Logger.getLogger(ObjectDecoder.class.getName());
+
+	private DecodeSteps() {
+		//static methods only
+	}
+
+	public static Object instantiate(MethodHandle ctor) {
+		try {
+			return (Object) ctor.invokeExact();
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeBoolean(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		boolean value;
+		try {
+			value = json.getBoolean(name);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeByte(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		byte value;
+		try {
+			value = Byte.decode(json.getString(name));
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeChar(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		String value;
+		try {
+			value = json.getString(name);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		if(value.length() != 1) {
+			return;
+		}
+		try {
+			setter.invokeExact(target, value.charAt(0));
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeShort(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		short value;
+		try {
+			value = (short) FieldDecoder.toIntegral(json, name, Short.MIN_VALUE, Short.MAX_VALUE);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeInt(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		int value;
+		try {
+			value = (int) FieldDecoder.toIntegral(json, name, Integer.MIN_VALUE,
+					Integer.MAX_VALUE);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeLong(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		long value;
+		try {
+			value = FieldDecoder.toIntegral(json, name, Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeFloat(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		float value;
+		try {
+			value = json.getFloat(name);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeDouble(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		double value;
+		try {
+			value = json.getDouble(name);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	public static void decodeString(JSONObject json, Object target, String name,
+			MethodHandle setter) {
+		Object value;
+		try {
+			value = json.getString(name);
+		}
+		catch(JSONException exep) {
+			failed(name, exep);
+			return;
+		}
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+	}
+
+	/**
+	 * Decodes a field through the reflective path. Used for fields that have no specialized step.
+	 *
+	 * @param json the JSON object being decoded.
+	 * @param target the object being populated.
+	 * @param delegate the delegate constant of the generated class.
+	 */
+
+	public static void decodeField(JSONObject json, Object target, Object delegate) {
+		((DecoderCompiler.Delegate) delegate).decode(json, target);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void failed(String name, JSONException exep) {
+		_L.log(Level.FINE, "unable to decode field " + name, exep);
+	}
+
+	private static RuntimeException rethrow(Throwable th) {
+		if(th instanceof RuntimeException) {
+			return (RuntimeException) th;
+		}
+		if(th instanceof Error) {
+			throw (Error) th;
+		}
+		return new IllegalStateException(th);
+	}
+}
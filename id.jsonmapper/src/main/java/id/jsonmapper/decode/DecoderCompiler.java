@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.ClassFileWriter;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.bind.GeneratedClassLoader;
+import id.jsonmapper.bind.TieredCodecs;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * Generates a dedicated {@link GeneratedDecoder} class for a type. The generated
+ * <code>decode</code> method is straight-line code: it creates the instance and then makes one
+ * {@link DecodeSteps} call per mapped field, passing the JSON name and the field setter as
+ * constants. Fields that have no specialized step, such as collections, fields with a converter or
+ * <code>@Dedup</code> strings, are handed back to the reflective {@link FieldDecoder}.
+ * <p>
+ * Only public types with a public no-argument constructor are compiled; all others stay on the
+ * reflective path.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+class DecoderCompiler implements TieredCodecs.Generator<GeneratedDecoder> {
+
+	private static final String DECODER = "id/jsonmapper/decode/GeneratedDecoder";
+	private static final String STEPS   = "id/jsonmapper/decode/DecodeSteps";
+	private static final String LOADER  = "id/jsonmapper/bind/GeneratedClassLoader";
+	private static final String OBJECT  = "java/lang/Object";
+
+	private static final String OBJECT_DESC = "Ljava/lang/Object;";
+	private static final String HANDLE_DESC = "Ljava/lang/invoke/MethodHandle;";
+	private static final String STEP_DESC   = "(Lid/jsonmapper/support/JSONObject;"
+			+ "Ljava/lang/Object;Ljava/lang/String;Ljava/lang/invoke/MethodHandle;)V";
+	private static final String FIELD_DESC  = "(Lid/jsonmapper/support/JSONObject;"
+			+ "Ljava/lang/Object;Ljava/lang/Object;)V";
+
+	private final ObjectDecoder                  objDecoder;
+	private final TieredCodecs<GeneratedDecoder> codecs;
+
+	DecoderCompiler(ObjectDecoder objDecoder) {
+		this.objDecoder = objDecoder;
+		codecs = new TieredCodecs<>(this);
+	}
+
+	/**
+	 * @param type the type about to be decoded.
+	 * @return the generated decoder for the type, or <code>null</code> if the type is to be
+	 * decoded reflectively.
+	 */
+
+	GeneratedDecoder lookup(Class<?> type) {
+		return codecs.lookup(type);
+	}
+
+	@Override
+	public GeneratedDecoder generate(Class<?> type) throws Exception {
+		if(!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+			throw new IllegalAccessException("not a public concrete class");
+		}
+		MethodHandle ctor = MethodHandles.publicLookup().unreflectConstructor(
+				type.getConstructor()).asType(MethodType.methodType(Object.class));
+
+		String className = "id.jsonmapper.gen." + type.getName().replace('.', '_') + "$Decoder";
+		String internalName = className.replace('.', '/');
+
+		List<Object> constants = new ArrayList<>();
+		ClassFileWriter cfw = new ClassFileWriter(internalName, OBJECT, DECODER);
+
+		ClassFileWriter.Code decode = cfw.method(ClassFileWriter.ACC_PUBLIC, "decode",
+				"(Lid/jsonmapper/support/JSONObject;)Ljava/lang/Object;");
+		cfw.field(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL, "C0", HANDLE_DESC);
+		constants.add(ctor);
+		decode.getstatic(internalName, "C0", HANDLE_DESC)
+				.invokestatic(STEPS, "instantiate", "(" + HANDLE_DESC + ")" + OBJECT_DESC)
+				.astore(2);
+
+		for(FieldBinding binding : BindingPlan.of(type).fields()) {
+			String constName = "C" + constants.size();
+			String step = stepFor(binding);
+			if(step != null) {
+				cfw.field(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+						constName, HANDLE_DESC);
+				constants.add(binding.setterHandle());
+				decode.aload(1).aload(2).ldcString(binding.name())
+						.getstatic(internalName, constName, HANDLE_DESC)
+						.invokestatic(STEPS, step, STEP_DESC);
+			}
+			else {
+				cfw.field(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+						constName, OBJECT_DESC);
+				constants.add(new Delegate(objDecoder, binding));
+				decode.aload(1).aload(2)
+						.getstatic(internalName, constName, OBJECT_DESC)
+						.invokestatic(STEPS, "decodeField", FIELD_DESC);
+			}
+		}
+		decode.aload(2).areturn();
+
+		cfw.method(ClassFileWriter.ACC_PUBLIC, "<init>", "()V")
+				.aload(0).invokespecial(OBJECT, "<init>", "()V").vreturn();
+
+		ClassFileWriter.Code clinit = cfw.method(ClassFileWriter.ACC_STATIC, "<clinit>", "()V");
+		clinit.ldcClass(internalName)
+				.invokestatic(LOADER, "constantsFor", "(Ljava/lang/Class;)[Ljava/lang/Object;")
+				.astore(0);
+		for(int i=0; i<constants.size(); i++) {
+			String desc = (constants.get(i) instanceof MethodHandle) ? HANDLE_DESC : OBJECT_DESC;
+			clinit.aload(0).iconst(i).aaload();
+			if(desc == HANDLE_DESC) {
+				clinit.checkcast("java/lang/invoke/MethodHandle");
+			}
+			clinit.putstatic(internalName, "C" + i, desc);
+		}
+		clinit.vreturn();
+
+		Class<?> genClass = GeneratedClassLoader.define(className, cfw.toByteArray(),
+				constants.toArray(), DecoderCompiler.class.getClassLoader());
+		return (GeneratedDecoder) genClass.newInstance();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static String stepFor(FieldBinding binding) {
+		if(binding.isRaw() || binding.converterType() != null) {
+			return null;
+		}
+		if(!binding.type().isPrimitive()) {
+			return (binding.type().equals(String.class) && binding.stringCache() == null)
+					? "decodeString" : null;
+		}
+		switch(binding.kind()) {
+		case BOOLEAN:
+			return "decodeBoolean";
+		case BYTE:
+			return "decodeByte";
+		case CHAR:
+			return "decodeChar";
+		case SHORT:
+			return "decodeShort";
+		case INT:
+			return "decodeInt";
+		case LONG:
+			return "decodeLong";
+		case FLOAT:
+			return "decodeFloat";
+		case DOUBLE:
+			return "decodeDouble";
+		default:
+			return null;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that hands a field back to the reflective path
+
+	static final class Delegate {
+
+		private final ObjectDecoder objDecoder;
+		private final FieldBinding  binding;
+
+		Delegate(ObjectDecoder objDecoder, FieldBinding binding) {
+			this.objDecoder = objDecoder;
+			this.binding = binding;
+		}
+
+		void decode(JSONObject jsonObj, Object target) {
+			objDecoder.convertField(jsonObj, target, binding);
+		}
+	}
+}
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import id.jsonmapper.Converter;
+import id.jsonmapper.FieldConverter;
+import id.jsonmapper.StreamConverter;
+import id.jsonmapper.bind.FieldAccessor;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONByteTokener;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+import id.jsonmapper.support.JSONTokener;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class FieldDecoder {
+
+	private DecoderRegistry decoderReg;
+
+	public FieldDecoder(DecoderRegistry reg) {
+		decoderReg = reg;
+	}
+
+	public void convert(JSONObject parentJson, Object parentObj, FieldBinding binding)
+			throws ReflectiveOperationException, JSONException {
+
+		if(binding.isRaw()) {
+			convertRaw(parentJson, parentObj, binding);
+			return;
+		}
+
+		if(binding.converterType() != null) {
+			FieldConverter fieldConv = binding.acquireConverter();
+			try {
+				convertUsing(parentJson, parentObj, binding, fieldConv);
+			}
+			finally {
+				binding.releaseConverter(fieldConv);
+			}
+			return;
+		}
+
+		if(binding.kind().isPrimitive()) {
+			convertPrimitive(parentJson, parentObj, binding);
+			return;
+		}
+
+		String name = binding.name();
+
+		switch(binding.kind()) {
+		case STRING:
+			String strVal = parentJson.getString(name);
+			if(binding.stringCache() != null) {
+				strVal = binding.stringCache().dedup(strVal);
+			}
+			populate(parentObj, binding, strVal);
+			return;
+
+		case BIG_DECIMAL:
+			BigDecimal decVal = parentJson.getBigDecimal(name);
+			populate(parentObj, binding, decVal);
+			return;
+
+		case BIG_INTEGER:
+			BigInteger intVal = parentJson.getBigInteger(name);
+			populate(parentObj, binding, intVal);
+			return;
+
+		case ARRAY:
+			convertArray(parentJson, parentObj, binding, null);
+			return;
+
+		case LIST:
+			if(binding.type().equals(List.class)) {
+				JSONArray arr = parentJson.getJSONArray(name);
+				List<?> values = decoderReg.listDecoder().convertList(arr,
+						binding.shape(), null);
+				populate(parentObj, binding, values);
+				return;
+			}
+			break;
+
+		case SET:
+			if(binding.type().equals(Set.class)) {
+				JSONArray arr = parentJson.getJSONArray(name);
+				Set<?> values = decoderReg.listDecoder().convertSet(arr,
+						binding.shape(), null);
+				populate(parentObj, binding, values);
+				return;
+			}
+			break;
+
+		case MAP:
+			if(binding.type().equals(Map.class)) {
+				JSONObject json = parentJson.getJSONObject(name);
+				Map<?, ?> value = decoderReg.mapDecoder().convert(json,
+						binding.shape(), null);
+				populate(parentObj, binding, value);
+				return;
+			}
+			break;
+
+		default:
+			break;
+		}
+
+		//map it as a regular object
+		if(!binding.type().isInterface() && !Modifier.isAbstract(binding.type().getModifiers())) {
+			JSONObject fldJson = parentJson.getJSONObject(name);
+			Object objVal = decoderReg.objectDecoder().convert(fldJson, binding.type());
+			populate(parentObj, binding, objVal);
+		}
+	}
+
+	/**
+	 * Sets a <code>short</code>, <code>int</code> or <code>long</code> field, primitive or boxed,
+	 * to an integer read straight from the input.
+	 *
+	 * @throws JSONException if the value is out of the range of the field.
+	 */
+
+	public void convertIntegral(long value, Object parentObj, FieldBinding binding)
+			throws JSONException {
+		FieldAccessor acc = binding.accessor();
+		boolean prim = binding.type().isPrimitive();
+
+		switch(binding.kind()) {
+		case SHORT:
+			short shortVal = (short) checkRange(value, binding.name(), Short.MIN_VALUE,
+					Short.MAX_VALUE);
+			if(prim) {
+				acc.setShort(parentObj, shortVal);
+			}
+			else {
+				acc.set(parentObj, shortVal);
+			}
+			break;
+
+		case INT:
+			int intVal = (int) checkRange(value, binding.name(), Integer.MIN_VALUE,
+					Integer.MAX_VALUE);
+			if(prim) {
+				acc.setInt(parentObj, intVal);
+			}
+			else {
+				acc.set(parentObj, intVal);
+			}
+			break;
+
+		case LONG:
+			if(prim) {
+				acc.setLong(parentObj, value);
+			}
+			else {
+				acc.set(parentObj, value);
+			}
+			break;
+
+		default:
+			throw new IllegalArgumentException("not an integral field: " + binding);
+		}
+	}
+
+	/**
+	 * Sets a <code>float</code> field, primitive or boxed, to a number read straight from the
+	 * input.
+	 */
+
+	public void convertFloat(float value, Object parentObj, FieldBinding binding) {
+		if(binding.type().isPrimitive()) {
+			binding.accessor().setFloat(parentObj, value);
+		}
+		else {
+			binding.accessor().set(parentObj, value);
+		}
+	}
+
+	/**
+	 * Sets a <code>double</code> field, primitive or boxed, to a number read straight from the
+	 * input.
+	 */
+
+	public void convertDouble(double value, Object parentObj, FieldBinding binding) {
+		if(binding.type().isPrimitive()) {
+			binding.accessor().setDouble(parentObj, value);
+		}
+		else {
+			binding.accessor().set(parentObj, value);
+		}
+	}
+
+	/**
+	 * Reads a member as an integer within the given range. Integers are taken exactly; other
+	 * numbers, and strings holding numbers, are truncated towards zero.
+	 *
+	 * @throws JSONException if the member is not a number, or is out of range.
+	 */
+
+	static long toIntegral(JSONObject json, String name, long min, long max)
+			throws JSONException {
+		try {
+			return toIntegral(json.get(name), min, max);
+		}
+		catch(ArithmeticException exep) {
+			throw new JSONException("JSONObject[" + JSONObject.quote(name) + "] is out of range.");
+		}
+		catch(NumberFormatException exep) {
+			throw new JSONException("JSONObject[" + JSONObject.quote(name) + "] is not a number.");
+		}
+	}
+
+	/**
+	 * Reads an array element as an integer within the given range, as
+	 * {@link #toIntegral(JSONObject, String, long, long)} reads a member.
+	 *
+	 * @throws JSONException if the element is not a number, or is out of range.
+	 */
+
+	static long toIntegral(JSONArray jsonArr, int position, long min, long max)
+			throws JSONException {
+		try {
+			return toIntegral(jsonArr.get(position), min, max);
+		}
+		catch(ArithmeticException exep) {
+			throw new JSONException("JSONArray[" + position + "] is out of range.");
+		}
+		catch(NumberFormatException exep) {
+			throw new JSONException("JSONArray[" + position + "] is not a number.");
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private void convertRaw(JSONObject parentJson, Object parentObj, FieldBinding binding)
+			throws ReflectiveOperationException, JSONException {
+
+		String fieldVal = parentJson.getJSONObject(binding.name()).toString();
+		if(binding.type().equals(String.class)) {
+			populate(parentObj, binding, fieldVal);
+		}
+		else {
+			populate(parentObj, binding, fieldVal.getBytes());
+		}
+	}
+
+	private void convertUsing(JSONObject parentJson, Object parentObj, FieldBinding binding,
+			FieldConverter fieldConv) throws ReflectiveOperationException, JSONException {
+
+		String name = binding.name();
+
+		if(fieldConv instanceof StreamConverter) {
+			//the converter reads the text of the tree node
+			String text = JSONObject.valueToString(parentJson.get(name));
+			JSONTokener x = new JSONByteTokener(text.getBytes(StandardCharsets.UTF_8));
+			populate(parentObj, binding, ((StreamConverter) fieldConv).read(x, binding.type()));
+			return;
+		}
+
+		Converter conv = (Converter) fieldConv;
+		switch(binding.kind()) {
+		case ARRAY:
+			convertArray(parentJson, parentObj, binding, conv);
+			return;
+
+		case LIST:
+			if(binding.type().equals(List.class)) {
+				JSONArray arr = parentJson.getJSONArray(name);
+				List<?> values = decoderReg.listDecoder().convertList(
+						arr, binding.shape(), conv);
+				populate(parentObj, binding, values);
+				return;
+			}
+			break;
+
+		case SET:
+			if(binding.type().equals(Set.class)) {
+				JSONArray arr = parentJson.getJSONArray(name);
+				Set<?> values = decoderReg.listDecoder().convertSet(
+						arr, binding.shape(), conv);
+				populate(parentObj, binding, values);
+				return;
+			}
+			break;
+
+		case MAP:
+			if(binding.type().equals(Map.class)) {
+				JSONObject json = parentJson.getJSONObject(name);
+				Map<?, ?> value = decoderReg.mapDecoder().convert(
+						json, binding.shape(), conv);
+				populate(parentObj, binding, value);
+				return;
+			}
+			break;
+
+		default:
+			break;
+		}
+
+		Object fldVal = conv.json2Object(parentJson.get(name), binding.type());
+		populate(parentObj, binding, fldVal);
+	}
+
+	private void convertPrimitive(JSONObject parentJson, Object parentObj, FieldBinding binding)
+			throws ReflectiveOperationException, JSONException {
+		FieldAccessor acc = binding.accessor();
+		boolean prim = binding.type().isPrimitive();
+		String name = binding.name();
+
+		switch(binding.kind()) {
+		case BOOLEAN:
+			boolean boolVal = parentJson.getBoolean(name);
+			if(prim) {
+				acc.setBoolean(parentObj, boolVal);
+			}
+			else {
+				acc.set(parentObj, boolVal);
+			}
+			break;
+
+		case BYTE:
+			byte byteVal = Byte.decode(parentJson.getString(name));
+			if(prim) {
+				acc.setByte(parentObj, byteVal);
+			}
+			else {
+				acc.set(parentObj, byteVal);
+			}
+			break;
+
+		case CHAR:
+			String value = parentJson.getString(name);
+			if(value.length() == 1) {
+				if(prim) {
+					acc.setChar(parentObj, value.charAt(0));
+				}
+				else {
+					acc.set(parentObj, value.charAt(0));
+				}
+			}
+			break;
+
+		case SHORT:
+			short shortVal = (short) toIntegral(parentJson, name, Short.MIN_VALUE, Short.MAX_VALUE);
+			if(prim) {
+				acc.setShort(parentObj, shortVal);
+			}
+			else {
+				acc.set(parentObj, shortVal);
+			}
+			break;
+
+		case INT:
+			int intVal = (int) toIntegral(parentJson, name, Integer.MIN_VALUE, Integer.MAX_VALUE);
+			if(prim) {
+				acc.setInt(parentObj, intVal);
+			}
+			else {
+				acc.set(parentObj, intVal);
+			}
+			break;
+
+		case LONG:
+			long longVal = toIntegral(parentJson, name, Long.MIN_VALUE, Long.MAX_VALUE);
+			if(prim) {
+				acc.setLong(parentObj, longVal);
+			}
+			else {
+				acc.set(parentObj, longVal);
+			}
+			break;
+
+		case FLOAT:
+			float floatVal = parentJson.getFloat(name);
+			if(prim) {
+				acc.setFloat(parentObj, floatVal);
+			}
+			else {
+				acc.set(parentObj, floatVal);
+			}
+			break;
+
+		case DOUBLE:
+			double doubleVal = parentJson.getDouble(name);
+			if(prim) {
+				acc.setDouble(parentObj, doubleVal);
+			}
+			else {
+				acc.set(parentObj, doubleVal);
+			}
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	private void convertArray(JSONObject parentJson, Object parentObj, FieldBinding binding,
+			Converter conv) throws ReflectiveOperationException {
+		JSONArray jsonArr = parentJson.getJSONArray(binding.name());
+		Object arrVal = decoderReg.arrayDecoder().convert(jsonArr, binding.shape(), conv);
+		if(arrVal != null) {
+			populate(parentObj, binding, arrVal);
+		}
+	}
+
+	private void populate(Object parentObj, FieldBinding binding, Object fldVal) {
+		binding.accessor().set(parentObj, fldVal);
+	}
+
+	/**
+	 * @throws ArithmeticException if the value is out of range.
+	 * @throws NumberFormatException if the value is not a number.
+	 */
+
+	private static long toIntegral(Object value, long min, long max) {
+		long result;
+		if(value instanceof Integer || value instanceof Long) {
+			result = ((Number) value).longValue();
+		}
+		else {
+			Long exact = (value instanceof String) ? parseLong((String) value) : null;
+			if(exact == null) {
+				return truncate(value, min, max);
+			}
+			result = exact;
+		}
+		if(result < min || result > max) {
+			throw new ArithmeticException("out of range");
+		}
+		return result;
+	}
+
+	private static long truncate(Object value, long min, long max) {
+		double dval;
+		if(value instanceof Number) {
+			dval = ((Number) value).doubleValue();
+		}
+		else if(value instanceof String) {
+			dval = Double.parseDouble((String) value);
+		}
+		else {
+			throw new NumberFormatException("not a number");
+		}
+		if(!(dval > (double) min - 1.0 && dval < (double) max + 1.0)) {
+			throw new ArithmeticException("out of range");
+		}
+		return (long) dval;
+	}
+
+	private static long checkRange(long value, String name, long min, long max)
+			throws JSONException {
+		if(value < min || value > max) {
+			throw new JSONException("JSONObject[" + JSONObject.quote(name) + "] is out of range.");
+		}
+		return value;
+	}
+
+	private static Long parseLong(String value) {
+		try {
+			return Long.valueOf(value.trim());
+		}
+		catch(NumberFormatException exep) {
+			return null;
+		}
+	}
+}
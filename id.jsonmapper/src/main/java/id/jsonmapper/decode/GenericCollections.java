@@ -16,6 +16,7 @@ package id.jsonmapper.decode;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -58,6 +59,22 @@ public class GenericCollections {
 		public Type getRawType() {
 			return rawType;
 		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof ParameterizedType)) {
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) obj;
+			return rawType.equals(other.getRawType()) && other.getOwnerType() == null
+					&& Arrays.equals(getActualTypeArguments(), other.getActualTypeArguments());
+		}
+
+		@Override
+		public int hashCode() {
+			//same as the parameterized types of the reflection API
+			return Arrays.hashCode(getActualTypeArguments()) ^ rawType.hashCode();
+		}
 	}
 
 }
@@ -14,19 +14,23 @@
 
 package id.jsonmapper.decode;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Array;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import id.jsonmapper.bind.TypeShape;
 import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONByteTokener;
+import id.jsonmapper.support.JSONLimitException;
+import id.jsonmapper.support.JSONLimits;
 import id.jsonmapper.support.JSONObject;
 import id.jsonmapper.support.JSONTokener;
 
@@ -37,29 +41,91 @@ import id.jsonmapper.support.JSONTokener;
 
 public class Json2Object {
 
-	private DecoderRegistryImpl reg;
-	private JSONTokener         tokener;
-	private Object              jsonRoot;
+	/**
+	 * The decoders hold no per-document state, hence a single registry is shared by all instances
+	 * across all threads.
+	 */
+
+	private static final DecoderRegistryImpl reg = new DecoderRegistryImpl();
+
+	private static final StreamDecoder streamer = new StreamDecoder(reg);
+
+	/**
+	 * The size of the chunks in which an input stream is read, unless specified otherwise.
+	 */
+
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private Object jsonRoot;
 
 	public Json2Object(InputStream in) throws IOException {
-		byte[] buffer = new byte[0];
-		byte[] chunk = new byte[1024];
-		int amt = 0;
-		while((amt = in.read(chunk)) >= 0) {
-			if(amt == 0) {
-				continue;
-			}
-			byte[] tempbuf = new byte[buffer.length + amt];
-			System.arraycopy(buffer, 0, tempbuf, 0, buffer.length);
-			System.arraycopy(chunk, 0, tempbuf, buffer.length, amt);
-			buffer = tempbuf;
-		}
-		in.close();
-		prepare(buffer);
+		this(in, DEFAULT_BUFFER_SIZE, JSONLimits.DEFAULT);
+	}
+
+	/**
+	 * Reads and parses a document from a stream. The stream is read in chunks of the given size,
+	 * which are joined once the whole document has been read; the stream is closed afterwards.
+	 *
+	 * @param in the stream to read the document from.
+	 * @param bufferSize the size of the chunks in which the stream is read.
+	 * @param limits the bounds the document must stay within.
+	 * @throws IOException if the stream cannot be read.
+	 * @throws JSONLimitException if the document exceeds one of the limits.
+	 */
+
+	public Json2Object(InputStream in, int bufferSize, JSONLimits limits) throws IOException {
+		prepare(readFully(in, bufferSize, limits), limits);
 	}
 
 	public Json2Object(byte[] data) {
-		prepare(data);
+		prepare(data, JSONLimits.DEFAULT);
+	}
+
+	public Json2Object(byte[] data, JSONLimits limits) {
+		if(data != null) {
+			limits.checkDocumentSize(data.length);
+		}
+		prepare(data, limits);
+	}
+
+	/**
+	 * Decodes a document straight into an object of the given type. Unlike the instance methods,
+	 * no tree of <code>JSONObject</code> instances is built for the document: values are written
+	 * into the target objects as they are read, and members that are not mapped to any field are
+	 * skipped. The result is the same as for <code>new Json2Object(data).convert(type)</code>.
+	 *
+	 * @param data the JSON document.
+	 * @param type the type of the root object.
+	 * @return the decoded object, or <code>null</code> if the document does not represent an
+	 * object of the type.
+	 */
+
+	public static <T> T decode(byte[] data, Class<T> type) {
+		return decode(data, type, JSONLimits.DEFAULT);
+	}
+
+	public static <T> T decode(byte[] data, Class<T> type, JSONLimits limits) {
+		if(data == null) {
+			return null;
+		}
+		limits.checkDocumentSize(data.length);
+		if(type.isArray()) {
+			return type.cast(new Json2Object(data, limits).convert(type));
+		}
+		JSONTokener tokener = new JSONByteTokener(data);
+		tokener.setLimits(limits);
+		return streamer.decode(tokener, type);
+	}
+
+	public static <T> T decode(InputStream in, Class<T> type) throws IOException {
+		return decode(in, type, DEFAULT_BUFFER_SIZE, JSONLimits.DEFAULT);
+	}
+
+	public static <T> T decode(InputStream in, Class<T> type, int bufferSize, JSONLimits limits)
+			throws IOException {
+		return decode(readFully(in, bufferSize, limits), type, limits);
 	}
 
 	public Object convert(Type type) {
@@ -70,15 +136,7 @@ public class Json2Object {
 		if(type instanceof Class) {
 			Class<?> ctype = (Class<?>) type;
 			if(ctype.isArray() && jsonRoot instanceof JSONArray) {
-				Object[] values = reg.arrayDecoder().convert((JSONArray) jsonRoot, ctype, null);
-				if(values != null) {
-					Object arrVal = Array.newInstance(ctype.getComponentType(), values.length);
-					for(int i=0; i < values.length; i++) {
-						Array.set(arrVal, i, values[i]);
-					}
-					return arrVal;
-				}
-				return null;
+				return reg.arrayDecoder().convert((JSONArray) jsonRoot, ctype, null);
 			}
 			else if(!ctype.isArray() && jsonRoot instanceof JSONObject) {
 				return reg.objectDecoder().convert((JSONObject) jsonRoot, ctype);
@@ -89,15 +147,15 @@ public class Json2Object {
 			Type rtype = ptype.getRawType();
 			if(jsonRoot instanceof JSONArray) {
 				if(rtype.equals(List.class)) {
-					return reg.listDecoder.convertList((JSONArray) jsonRoot, type, null);
+					return reg.listDecoder.convertList((JSONArray) jsonRoot, TypeShape.of(type), null);
 				}
 				if(rtype.equals(Set.class)) {
-					return reg.listDecoder.convertSet((JSONArray) jsonRoot, type, null);
+					return reg.listDecoder.convertSet((JSONArray) jsonRoot, TypeShape.of(type), null);
 				}
 			}
 			else if(jsonRoot instanceof JSONObject) {
 				if(rtype.equals(Map.class)) {
-					return reg.mapDecoder.convert((JSONObject) jsonRoot, type, null);
+					return reg.mapDecoder.convert((JSONObject) jsonRoot, TypeShape.of(type), null);
 				}
 			}
 		}
@@ -175,8 +233,7 @@ public class Json2Object {
 			}
 			if(ctype.equals(Float.TYPE) || ctype.equals(Float.class)) {
 				try {
-					Double value = nowVal.getDouble(name);
-					return value.floatValue();
+					return nowVal.getFloat(name);
 				}
 				catch(Exception exep) {
 					return ctype.equals(Float.TYPE) ? (float) 0 : null;
@@ -219,14 +276,7 @@ public class Json2Object {
 			if(ctype.isArray()) {
 				try {
 					JSONArray jarr = nowVal.getJSONArray(name);
-					Object[] values = reg.arrayDecoder().convert(jarr, ctype, null);
-					if(values != null) {
-						Object arrVal = Array.newInstance(ctype.getComponentType(), values.length);
-						for(int i=0; i < values.length; i++) {
-							Array.set(arrVal, i, values[i]);
-						}
-						return arrVal;
-					}
+					return reg.arrayDecoder().convert(jarr, ctype, null);
 				}
 				catch(Exception exep) {}
 				return null;
@@ -247,15 +297,15 @@ public class Json2Object {
 				Object lastVal = nowVal.get(name);
 				if(lastVal instanceof JSONArray) {
 					if(rtype.equals(List.class)) {
-						return reg.listDecoder.convertList((JSONArray) lastVal, type, null);
+						return reg.listDecoder.convertList((JSONArray) lastVal, TypeShape.of(type), null);
 					}
 					if(rtype.equals(Set.class)) {
-						return reg.listDecoder.convertSet((JSONArray) lastVal, type, null);
+						return reg.listDecoder.convertSet((JSONArray) lastVal, TypeShape.of(type), null);
 					}
 				}
 				else if(lastVal instanceof JSONObject) {
 					if(rtype.equals(Map.class)) {
-						return reg.mapDecoder.convert((JSONObject) lastVal, type, null);
+						return reg.mapDecoder.convert((JSONObject) lastVal, TypeShape.of(type), null);
 					}
 				}
 			}
@@ -268,31 +318,84 @@ public class Json2Object {
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Helper methods
 
-	private void prepare(byte[] data) {
-		reg = new DecoderRegistryImpl();
-		reg.objDecoder = new ObjectDecoder(reg);
-		reg.fldDecoder = new FieldDecoder(reg);
-		reg.listDecoder = new ListDecoder(reg);
-		reg.arrDecoder = new ArrayDecoder(reg);
-		reg.mapDecoder = new MapDecoder(reg);
+	/**
+	 * Reads the stream into chunks of the given size and joins them once at the end, so every
+	 * byte is copied at most once regardless of the size of the document.
+	 */
 
+	private static byte[] readFully(InputStream in, int bufferSize, JSONLimits limits)
+			throws IOException {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+		}
+		List<byte[]> chunks = new ArrayList<>();
+		byte[] chunk = new byte[bufferSize];
+		int fill = 0;
+		long total = 0;
+		try {
+			int amt = 0;
+			while((amt = in.read(chunk, fill, chunk.length - fill)) >= 0) {
+				total += amt;
+				limits.checkDocumentSize(total);
+				if(total > MAX_ARRAY_SIZE) {
+					throw new JSONLimitException("document exceeds the maximum size of "
+							+ MAX_ARRAY_SIZE + " bytes", MAX_ARRAY_SIZE);
+				}
+				fill += amt;
+				if(fill == chunk.length) {
+					chunks.add(chunk);
+					chunk = new byte[bufferSize];
+					fill = 0;
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		if(chunks.isEmpty()) {
+			return Arrays.copyOf(chunk, fill);
+		}
+		if(chunks.size() == 1 && fill == 0) {
+			return chunks.get(0);
+		}
+		byte[] buffer = new byte[(int) total];
+		int offset = 0;
+		for(byte[] full : chunks) {
+			System.arraycopy(full, 0, buffer, offset, full.length);
+			offset += full.length;
+		}
+		System.arraycopy(chunk, 0, buffer, offset, fill);
+		return buffer;
+	}
+
+	private void prepare(byte[] data, JSONLimits limits) {
 		if(data == null) {
 			return;
 		}
-		tokener = new JSONTokener(new ByteArrayInputStream(data));
+		JSONTokener tokener = new JSONByteTokener(data);
+		tokener.setLimits(limits);
 		jsonRoot = tokener.nextValue();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Inner class that represents a DecoderRegistry
 
-	private class DecoderRegistryImpl implements DecoderRegistry {
+	private static class DecoderRegistryImpl implements DecoderRegistry {
 
-		private ObjectDecoder objDecoder;
-		private FieldDecoder  fldDecoder;
-		private ListDecoder   listDecoder;
-		private ArrayDecoder  arrDecoder;
-		private MapDecoder    mapDecoder;
+		private final ObjectDecoder objDecoder;
+		private final FieldDecoder  fldDecoder;
+		private final ListDecoder   listDecoder;
+		private final ArrayDecoder  arrDecoder;
+		private final MapDecoder    mapDecoder;
+
+		DecoderRegistryImpl() {
+			objDecoder = new ObjectDecoder(this);
+			fldDecoder = new FieldDecoder(this);
+			listDecoder = new ListDecoder(this);
+			arrDecoder = new ArrayDecoder(this);
+			mapDecoder = new MapDecoder(this);
+		}
 
 		@Override
 		public ObjectDecoder objectDecoder() {
@@ -14,10 +14,6 @@
 
 package id.jsonmapper.decode;
 
-import java.lang.reflect.Modifier;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-
 import id.jsonmapper.Converter;
 import id.jsonmapper.support.JSONArray;
 
@@ -46,60 +42,55 @@ abstract class LinearCollectionDecoder {
 			return conv.json2Object(jsonArr.getJSONObject(position), compType);
 		}
 
-		if(compType.equals(Boolean.TYPE) || compType.equals(Boolean.class)) {
+		switch(ComponentKind.of(compType)) {
+		case BOOLEAN:
 			return jsonArr.getBoolean(position);
-		}
 
-		if(compType.equals(Byte.TYPE) || compType.equals(Byte.class)) {
-			String value = jsonArr.getString(position);
-			return Byte.decode(value);
-		}
+		case BYTE:
+			return Byte.decode(jsonArr.getString(position));
 
-		if(compType.equals(Character.TYPE) || compType.equals(Character.class)) {
-			String value = jsonArr.getString(position);
-			if(value.length() == 1) {
-				return value.charAt(0);
+		case CHAR:
+			String chars = jsonArr.getString(position);
+			if(chars.length() == 1) {
+				return chars.charAt(0);
 			}
-		}
+			if(!ComponentKind.isConcrete(compType)) {
+				return null;
+			}
+			//not a single character, a boxed component is left to the object decoder
+			return decoderReg.objectDecoder().convert(jsonArr.getJSONObject(position), compType);
 
-		if(compType.equals(Short.TYPE) || compType.equals(Short.class)) {
-			Double value = jsonArr.getDouble(position);
-			return value.shortValue();
-		}
+		case SHORT:
+			return (short) FieldDecoder.toIntegral(jsonArr, position, Short.MIN_VALUE,
+					Short.MAX_VALUE);
 
-		if(compType.equals(Integer.TYPE) || compType.equals(Integer.class)) {
-			Double value = jsonArr.getDouble(position);
-			return value.intValue();
-		}
+		case INT:
+			return (int) FieldDecoder.toIntegral(jsonArr, position, Integer.MIN_VALUE,
+					Integer.MAX_VALUE);
 
-		if(compType.equals(Long.TYPE) || compType.equals(Long.class)) {
-			return jsonArr.getLong(position);
-		}
+		case LONG:
+			return FieldDecoder.toIntegral(jsonArr, position, Long.MIN_VALUE, Long.MAX_VALUE);
 
-		if(compType.equals(Float.TYPE) || compType.equals(Float.class)) {
-			Double value = jsonArr.getDouble(position);
-			return value.floatValue();
-		}
+		case FLOAT:
+			return jsonArr.getFloat(position);
 
-		if(compType.equals(Double.TYPE) || compType.equals(Double.class)) {
+		case DOUBLE:
 			return jsonArr.getDouble(position);
-		}
 
-		if(compType.equals(String.class)) {
+		case STRING:
 			return jsonArr.getString(position);
-		}
 
-		if(compType.equals(BigDecimal.class)) {
+		case BIG_DECIMAL:
 			return jsonArr.getBigDecimal(position);
-		}
 
-		if(compType.equals(BigInteger.class)) {
+		case BIG_INTEGER:
 			return jsonArr.getBigInteger(position);
-		}
 
-		if(!compType.isInterface() && !Modifier.isAbstract(compType.getModifiers())) {
+		case OBJECT:
 			return decoderReg.objectDecoder().convert(jsonArr.getJSONObject(position), compType);
+
+		default:
+			return null;
 		}
-		return null;
 	}
 }
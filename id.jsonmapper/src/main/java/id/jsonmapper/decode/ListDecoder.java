@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import id.jsonmapper.Converter;
+import id.jsonmapper.bind.TypeShape;
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class ListDecoder extends LinearCollectionDecoder {
+
+	private DecoderRegistry decoderReg;
+
+	public ListDecoder(DecoderRegistry reg) {
+		super(reg);
+		decoderReg = reg;
+	}
+
+	public List<?> convertList(JSONArray jsonArr, TypeShape shape, Converter conv) {
+		TypeShape elemShape = shape.element();
+		if(elemShape == null) {
+			return null;
+		}
+		ArrayList<Object> result = new ArrayList<>(jsonArr.length());
+		fill(jsonArr, elemShape, conv, result);
+		return result;
+	}
+
+	public Set<?> convertSet(JSONArray jsonArr, TypeShape shape, Converter conv) {
+		TypeShape elemShape = shape.element();
+		if(elemShape == null) {
+			return null;
+		}
+		HashSet<Object> result = new HashSet<>(MapDecoder.hashCapacity(jsonArr.length()));
+		fill(jsonArr, elemShape, conv, result);
+		return result;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Converts the elements of the JSON array straight into the given collection.
+	 */
+
+	private void fill(JSONArray jsonArr, TypeShape elemShape, Converter conv,
+			Collection<Object> result) {
+
+		if(elemShape.isClass()) {
+			Class<?> compType = elemShape.rawType();
+			for(int i=0; i<jsonArr.length(); i++) {
+				result.add(convertOne(jsonArr, i, compType, conv));
+			}
+			return;
+		}
+
+		Class<?> rawType = elemShape.rawType();
+		if(List.class.equals(rawType)) {
+			for(int i=0; i<jsonArr.length(); i++) {
+				JSONArray subArr = jsonArr.getJSONArray(i);
+				result.add(convertList(subArr, elemShape, null));
+			}
+		}
+		else if(Set.class.equals(rawType)) {
+			for(int i=0; i<jsonArr.length(); i++) {
+				JSONArray subArr = jsonArr.getJSONArray(i);
+				result.add(convertSet(subArr, elemShape, null));
+			}
+		}
+		else if(Map.class.equals(rawType)) {
+			for(int i=0; i<jsonArr.length(); i++) {
+				JSONObject subJson = jsonArr.getJSONObject(i);
+				Object item = decoderReg.mapDecoder().convert(subJson, elemShape, null);
+				result.add(item);
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import id.jsonmapper.Converter;
+import id.jsonmapper.bind.TypeShape;
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class MapDecoder {
+
+	private DecoderRegistry decoderReg;
+
+	public MapDecoder(DecoderRegistry reg) {
+		decoderReg = reg;
+	}
+
+	public Map<?, ?> convert(JSONObject jsonObj, TypeShape shape, Converter conv) {
+		TypeShape valueShape = shape.value();
+		if(valueShape == null) {
+			return null;
+		}
+
+		HashMap<String, Object> result = new HashMap<>(hashCapacity(jsonObj.length()));
+		if(valueShape.isClass()) {
+			Class<?> compType = valueShape.rawType();
+			for(String key : jsonObj.keySet()) {
+				Object value = convertOne(jsonObj, key, compType, conv);
+				result.put(key, value);
+			}
+			return result;
+		}
+
+		Class<?> rawType = valueShape.rawType();
+		for(String key : jsonObj.keySet()) {
+			if(List.class.equals(rawType)) {
+				JSONArray subArr = jsonObj.getJSONArray(key);
+				Object value = decoderReg.listDecoder().convertList(subArr, valueShape, null);
+				result.put(key, value);
+			}
+			if(Set.class.equals(rawType)) {
+				JSONArray subArr = jsonObj.getJSONArray(key);
+				Object value = decoderReg.listDecoder().convertSet(subArr, valueShape, null);
+				result.put(key, value);
+			}
+			if(Map.class.equals(rawType)) {
+				JSONObject subJson = jsonObj.getJSONObject(key);
+				Object value = convert(subJson, valueShape, null);
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the initial capacity of a hash map or set that holds the given number of entries
+	 *         without being rehashed.
+	 */
+
+	static int hashCapacity(int size) {
+		return (size < 12) ? 16 : (int) (size / 0.75f) + 1;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private Object convertOne(JSONObject json, String key, Class<?> compType, Converter conv) {
+
+		if(conv != null) {
+			return conv.json2Object(json.get(key), compType);
+		}
+
+		switch(ComponentKind.of(compType)) {
+		case BOOLEAN:
+			return json.getBoolean(key);
+
+		case BYTE:
+			return Byte.decode(json.getString(key));
+
+		case CHAR:
+			String chars = json.getString(key);
+			if(chars.length() == 1) {
+				return chars.charAt(0);
+			}
+			if(!ComponentKind.isConcrete(compType)) {
+				return null;
+			}
+			//not a single character, a boxed component is left to the object decoder
+			return decoderReg.objectDecoder().convert(json.getJSONObject(key), compType);
+
+		case SHORT:
+			return (short) FieldDecoder.toIntegral(json, key, Short.MIN_VALUE, Short.MAX_VALUE);
+
+		case INT:
+			return (int) FieldDecoder.toIntegral(json, key, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+		case LONG:
+			return FieldDecoder.toIntegral(json, key, Long.MIN_VALUE, Long.MAX_VALUE);
+
+		case FLOAT:
+			return json.getFloat(key);
+
+		case DOUBLE:
+		case NUMBER:
+			return json.getDouble(key);
+
+		case STRING:
+			return json.getString(key);
+
+		case BIG_DECIMAL:
+			return json.getBigDecimal(key);
+
+		case BIG_INTEGER:
+			return json.getBigInteger(key);
+
+		case ARRAY:
+			return decoderReg.arrayDecoder().convert(json.getJSONArray(key), compType, null);
+
+		case OBJECT:
+			return decoderReg.objectDecoder().convert(json.getJSONObject(key), compType);
+
+		default:
+			return null;
+		}
+	}
+}
@@ -14,15 +14,12 @@
 
 package id.jsonmapper.decode;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import id.jsonmapper.JSON;
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.FieldBinding;
 import id.jsonmapper.support.JSONException;
 import id.jsonmapper.support.JSONObject;
 
@@ -36,54 +33,54 @@ class ObjectDecoder {
 	private static final Logger _L = Logger.getLogger(ObjectDecoder.class.getName());
 
 	private DecoderRegistry decoderReg;
+	private DecoderCompiler compiler;
 
 	public ObjectDecoder(DecoderRegistry reg) {
 		decoderReg = reg;
+		compiler = new DecoderCompiler(this);
 	}
 
 	public <T> T convert(JSONObject jsonObj, Class<T> type) {
+		GeneratedDecoder codec = compiler.lookup(type);
+		if(codec != null) {
+			return type.cast(codec.decode(jsonObj));
+		}
+
 		T target;
 
 		try {
-			target = type.newInstance();
+			target = type.cast(BindingPlan.of(type).newInstance());
 		}
 		catch (InstantiationException | IllegalAccessException exep) {
 			exep.printStackTrace();
 			return null;
 		}
 
-		List<Field> allFields = new LinkedList<>();
-		collateAllFields(type, allFields);
-		for(Field field : allFields) {
-			try {
-				decoderReg.fieldDecoder().convert(jsonObj, target, field);
-			}
-			catch(ReflectiveOperationException | JSONException exep) {
-				_L.log(Level.FINE, "unable to decode field " + field.getName(), exep);
-			}
+		for(FieldBinding binding : BindingPlan.of(type).fields()) {
+			convertField(jsonObj, target, binding);
 		}
 		return target;
 	}
 
-	public <T> T toObject(Class<T> type, Type genericType) {
-		return null;
+	void convertField(JSONObject jsonObj, Object target, FieldBinding binding) {
+		try {
+			decoderReg.fieldDecoder().convert(jsonObj, target, binding);
+		}
+		catch(ReflectiveOperationException | JSONException exep) {
+			_L.log(Level.FINE, "unable to decode field " + binding.field().getName(), exep);
+		}
 	}
 
-	////////////////////////////////////////////////////////////////////////////////////////////////
-	// Helper methods
-
-	private void collateAllFields(Class<?> type, List<Field> fieldList) {
-		boolean traverse = type.getClassLoader() != null;
-		for(Field field : type.getDeclaredFields()) {
-			if(!Modifier.isStatic(field.getModifiers())) {
-				JSON ann = field.getAnnotation(JSON.class);
-				if(ann != null && ann.value() != null) {
-					fieldList.add(field);
-				}
-			}
+	void convertField(long value, Object target, FieldBinding binding) {
+		try {
+			decoderReg.fieldDecoder().convertIntegral(value, target, binding);
 		}
-		if(type.getSuperclass() != null && traverse) {
-			collateAllFields(type.getSuperclass(), fieldList);
+		catch(JSONException exep) {
+			_L.log(Level.FINE, "unable to decode field " + binding.field().getName(), exep);
 		}
 	}
+
+	public <T> T toObject(Class<T> type, Type genericType) {
+		return null;
+	}
 }
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.util.Arrays;
+
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONTokener;
+
+/**
+ * Decodes an array of a primitive type, storing the elements straight into the typed array instead
+ * of collecting them in a list and copying them with <code>java.lang.reflect.Array</code>. Elements
+ * are converted as {@link LinearCollectionDecoder} converts them.
+ * <p>
+ * When reading from a tokener, number literals for numeric arrays are converted straight from the
+ * input, without boxing. Other elements are read as values and converted as above.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+abstract class PrimitiveArrayDecoder {
+
+	private static final PrimitiveArrayDecoder BOOLEANS = new Booleans();
+	private static final PrimitiveArrayDecoder BYTES = new Bytes();
+	private static final PrimitiveArrayDecoder CHARS = new Chars();
+	private static final PrimitiveArrayDecoder SHORTS = new Shorts();
+	private static final PrimitiveArrayDecoder INTS = new Ints();
+	private static final PrimitiveArrayDecoder LONGS = new Longs();
+	private static final PrimitiveArrayDecoder FLOATS = new Floats();
+	private static final PrimitiveArrayDecoder DOUBLES = new Doubles();
+
+	/**
+	 * @return the decoder for the given array type, or <code>null</code> if it is not an array of
+	 *         a primitive type.
+	 */
+
+	public static PrimitiveArrayDecoder of(Class<?> type) {
+		if(type == boolean[].class) {
+			return BOOLEANS;
+		}
+		if(type == byte[].class) {
+			return BYTES;
+		}
+		if(type == char[].class) {
+			return CHARS;
+		}
+		if(type == short[].class) {
+			return SHORTS;
+		}
+		if(type == int[].class) {
+			return INTS;
+		}
+		if(type == long[].class) {
+			return LONGS;
+		}
+		if(type == float[].class) {
+			return FLOATS;
+		}
+		if(type == double[].class) {
+			return DOUBLES;
+		}
+		return null;
+	}
+
+	/**
+	 * @throws JSONException if an element cannot be converted.
+	 */
+
+	public Object convert(JSONArray jsonArr) throws JSONException {
+		int length = jsonArr.length();
+		Object array = resize(null, length);
+		for(int i=0; i<length; i++) {
+			convertItem(jsonArr, i, array, i);
+		}
+		return array;
+	}
+
+	/**
+	 * Reads an array from the tokener, with the same syntax rules as <code>JSONArray</code>.
+	 *
+	 * @return the array, or <code>null</code> if an element cannot be converted. The whole array
+	 *         is read in any case.
+	 * @throws JSONException if there is a syntax error.
+	 */
+
+	public Object read(JSONTokener x) throws JSONException {
+		if(x.nextClean() != '[') {
+			throw x.syntaxError("A JSONArray text must start with '['");
+		}
+		x.enter();
+		Object array = resize(null, 16);
+		int capacity = 16;
+		int length = 0;
+		JSONArray scratch = null;
+		boolean failed = false;
+
+		if(x.nextClean() != ']') {
+			x.back();
+			for(;;) {
+				x.checkElements(length + 1);
+				if(length == capacity) {
+					capacity <<= 1;
+					array = resize(array, capacity);
+				}
+				if(x.nextClean() == ',') {
+					//an omitted element is null, which no primitive type accepts
+					x.back();
+					failed = true;
+				}
+				else {
+					x.back();
+					if(failed) {
+						x.skipValue();
+					}
+					else {
+						if(scratch == null) {
+							scratch = new JSONArray();
+						}
+						failed = !readItemInRange(x, array, length, scratch);
+					}
+				}
+				length++;
+
+				switch(x.nextClean()) {
+				case ',':
+					if(x.nextClean() == ']') {
+						x.leave();
+						return failed ? null : resize(array, length);
+					}
+					x.back();
+					break;
+				case ']':
+					x.leave();
+					return failed ? null : resize(array, length);
+				default:
+					throw x.syntaxError("Expected a ',' or ']'");
+				}
+			}
+		}
+		x.leave();
+		return resize(array, 0);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Reads the next element into the array, straight from the tokener if possible, or as a value
+	 * converted as {@link #convert(JSONArray)} converts it otherwise, through the given scratch
+	 * array.
+	 *
+	 * @return false if the element cannot be converted. The element is read in any case.
+	 * @throws JSONException if there is a syntax error.
+	 */
+
+	private boolean readItemInRange(JSONTokener x, Object array, int index, JSONArray scratch)
+			throws JSONException {
+		try {
+			if(readItem(x, array, index)) {
+				return true;
+			}
+		}
+		catch(ArithmeticException exep) {
+			//read, but out of the range of the array type
+			return false;
+		}
+		scratch.put(0, x.nextValue());
+		try {
+			convertItem(scratch, 0, array, index);
+			return true;
+		}
+		catch(JSONException exep) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates an array of the given length, with the leading elements copied from the given array
+	 * if it is not <code>null</code>.
+	 */
+
+	protected abstract Object resize(Object array, int length);
+
+	protected abstract void convertItem(JSONArray jsonArr, int position, Object array, int index)
+			throws JSONException;
+
+	/**
+	 * Reads the next element straight from the tokener, if it can be done without building a value.
+	 *
+	 * @return false if nothing has been read.
+	 * @throws ArithmeticException if the element has been read but is out of the range of the
+	 *         array type.
+	 */
+
+	protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+		return false;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes that decode the individual array types
+
+	private static class Booleans extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new boolean[length] : Arrays.copyOf((boolean[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((boolean[]) array)[index] = jsonArr.getBoolean(position);
+		}
+	}
+
+	private static class Bytes extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new byte[length] : Arrays.copyOf((byte[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			try {
+				((byte[]) array)[index] = Byte.decode(jsonArr.getString(position));
+			}
+			catch(NumberFormatException exep) {
+				throw new JSONException("JSONArray[" + position + "] is not a byte.", exep);
+			}
+		}
+	}
+
+	private static class Chars extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new char[length] : Arrays.copyOf((char[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			String value = jsonArr.getString(position);
+			if(value.length() != 1) {
+				throw new JSONException("JSONArray[" + position + "] is not a character.");
+			}
+			((char[]) array)[index] = value.charAt(0);
+		}
+	}
+
+	private static class Shorts extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new short[length] : Arrays.copyOf((short[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((short[]) array)[index] = (short) FieldDecoder.toIntegral(jsonArr, position,
+					Short.MIN_VALUE, Short.MAX_VALUE);
+		}
+
+		@Override
+		protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+			if(x.tryNextLong()) {
+				long value = x.longValue();
+				if(value != (short) value) {
+					throw new ArithmeticException("short overflow");
+				}
+				((short[]) array)[index] = (short) value;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static class Ints extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new int[length] : Arrays.copyOf((int[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((int[]) array)[index] = (int) FieldDecoder.toIntegral(jsonArr, position,
+					Integer.MIN_VALUE, Integer.MAX_VALUE);
+		}
+
+		@Override
+		protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+			if(x.tryNextLong()) {
+				((int[]) array)[index] = Math.toIntExact(x.longValue());
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static class Longs extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new long[length] : Arrays.copyOf((long[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((long[]) array)[index] = FieldDecoder.toIntegral(jsonArr, position, Long.MIN_VALUE,
+					Long.MAX_VALUE);
+		}
+
+		@Override
+		protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+			if(x.tryNextLong()) {
+				((long[]) array)[index] = x.longValue();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static class Floats extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new float[length] : Arrays.copyOf((float[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((float[]) array)[index] = jsonArr.getFloat(position);
+		}
+
+		@Override
+		protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+			if(x.tryNextDouble()) {
+				((float[]) array)[index] = x.floatValue();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static class Doubles extends PrimitiveArrayDecoder {
+
+		@Override
+		protected Object resize(Object array, int length) {
+			return (array == null) ? new double[length] : Arrays.copyOf((double[]) array, length);
+		}
+
+		@Override
+		protected void convertItem(JSONArray jsonArr, int position, Object array, int index)
+				throws JSONException {
+			((double[]) array)[index] = jsonArr.getDouble(position);
+		}
+
+		@Override
+		protected boolean readItem(JSONTokener x, Object array, int index) throws JSONException {
+			if(x.tryNextDouble()) {
+				((double[]) array)[index] = x.doubleValue();
+				return true;
+			}
+			return false;
+		}
+	}
+}
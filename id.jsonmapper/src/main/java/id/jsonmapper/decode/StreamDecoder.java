@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import id.jsonmapper.StreamConverter;
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.bind.FieldKind;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+import id.jsonmapper.support.JSONTokener;
+
+/**
+ * Decodes a JSON document directly from the tokener into the target object graph, without first
+ * building a tree of <code>JSONObject</code> instances. Members are looked up in the binding plan
+ * of the class as they are read; members that are not mapped to any field are skipped without
+ * being stored. Nested objects mapped to regular object fields are decoded the same way.
+ * <p>
+ * As in the tree, a key that occurs twice in the same object is rejected, whether or not it is
+ * mapped. Values that are skipped are only checked for syntax, so a duplicate key inside an
+ * unmapped nested object is not reported, while the tree rejects it.
+ * <p>
+ * Number literals mapped to <code>short</code>, <code>int</code>, <code>long</code>,
+ * <code>float</code> and <code>double</code> fields are converted straight from the input into the
+ * field, without boxing; floats are rounded directly from the decimal text rather than through a
+ * double. Arrays of primitive types are read straight into the typed array. All other mapped
+ * values, such as other primitives, collections or values with a converter, are read individually
+ * and handed to the {@link FieldDecoder}, so the conversion rules are the same as for a document
+ * decoded through its tree. Fields with a {@link StreamConverter} are read by the converter
+ * straight from the tokener.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+class StreamDecoder {
+
+	private static final Logger _L = Logger.getLogger(StreamDecoder.class.getName());
+
+	private DecoderRegistry decoderReg;
+
+	public StreamDecoder(DecoderRegistry reg) {
+		decoderReg = reg;
+	}
+
+	public <T> T decode(JSONTokener x, Class<T> type) throws JSONException {
+		char c = x.nextClean();
+		x.back();
+		if(c != '{' || !isConcrete(type)) {
+			//nothing to stream into, decode through the tree
+			Object root = x.nextValue();
+			if(root instanceof JSONObject) {
+				return decoderReg.objectDecoder().convert((JSONObject) root, type);
+			}
+			return null;
+		}
+		//a single scratch object carries the values handed to the field decoder
+		return type.cast(decodeObject(x, type, new JSONObject()));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private Object decodeObject(JSONTokener x, Class<?> type, JSONObject scratch)
+			throws JSONException {
+
+		BindingPlan plan = BindingPlan.of(type);
+		Object target;
+		try {
+			target = plan.newInstance();
+		}
+		catch(InstantiationException | IllegalAccessException exep) {
+			exep.printStackTrace();
+			x.skipValue();
+			return null;
+		}
+
+		if(x.nextClean() != '{') {
+			throw x.syntaxError("A JSONObject text must begin with '{'");
+		}
+		x.enter();
+		boolean[] seen = new boolean[plan.memberCount()];
+		Set<String> unmapped = null;
+		int members = 0;
+		for(;;) {
+			switch(x.nextClean()) {
+			case 0:
+				throw x.syntaxError("A JSONObject text must end with '}'");
+			case '}':
+				x.leave();
+				return target;
+			default:
+				x.back();
+			}
+			x.checkMembers(++members);
+			String key = x.nextKey();
+			if(x.nextClean() != ':') {
+				throw x.syntaxError("Expected a ':' after a key");
+			}
+
+			int slot = plan.memberSlot(key);
+			if(slot < 0) {
+				//unmapped keys are rare, the set is only created for the first one
+				if(unmapped == null) {
+					unmapped = new HashSet<>();
+				}
+				if(!unmapped.add(key)) {
+					throw new JSONException("Duplicate key \"" + key + "\"");
+				}
+				x.skipValue();
+			}
+			else {
+				if(seen[slot]) {
+					throw new JSONException("Duplicate key \"" + key + "\"");
+				}
+				seen[slot] = true;
+				decodeMember(x, target, key, plan.membersAt(slot), scratch);
+			}
+
+			switch(x.nextClean()) {
+			case ';':
+			case ',':
+				if(x.nextClean() == '}') {
+					x.leave();
+					return target;
+				}
+				x.back();
+				break;
+			case '}':
+				x.leave();
+				return target;
+			default:
+				throw x.syntaxError("Expected a ',' or '}'");
+			}
+		}
+	}
+
+	private void decodeMember(JSONTokener x, Object target, String key, FieldBinding[] bindings,
+			JSONObject scratch) throws JSONException {
+
+		if(bindings.length == 1 && isNested(bindings[0])) {
+			char c = x.nextClean();
+			x.back();
+			if(c == '{') {
+				Object value = decodeObject(x, bindings[0].type(), scratch);
+				bindings[0].accessor().set(target, value);
+				return;
+			}
+		}
+
+		if(bindings.length == 1 && isPlain(bindings[0])
+				&& (decodeNumber(x, target, bindings[0]) || decodeArray(x, target, bindings[0]))) {
+			return;
+		}
+
+		if(bindings.length == 1 && !bindings[0].isRaw() && bindings[0].hasStreamConverter()
+				&& decodeConverted(x, target, bindings[0])) {
+			return;
+		}
+
+		scratch.put(key, x.nextValue());
+		for(FieldBinding binding : bindings) {
+			decoderReg.objectDecoder().convertField(scratch, target, binding);
+		}
+		scratch.remove(key);
+	}
+
+	private static boolean isNested(FieldBinding binding) {
+		return binding.kind() == FieldKind.OBJECT && !binding.isRaw()
+				&& binding.converterType() == null && isConcrete(binding.type());
+	}
+
+	/**
+	 * Converts a number literal straight from the input into a numeric field.
+	 *
+	 * @return false if the field is not numeric or the next value is not a number literal.
+	 */
+
+	private boolean decodeNumber(JSONTokener x, Object target, FieldBinding binding)
+			throws JSONException {
+
+		switch(binding.kind()) {
+		case SHORT:
+		case INT:
+		case LONG:
+			if(x.tryNextLong()) {
+				decoderReg.objectDecoder().convertField(x.longValue(), target, binding);
+				return true;
+			}
+			return false;
+
+		case FLOAT:
+			if(x.tryNextDouble()) {
+				decoderReg.fieldDecoder().convertFloat(x.floatValue(), target, binding);
+				return true;
+			}
+			return false;
+
+		case DOUBLE:
+			if(x.tryNextDouble()) {
+				decoderReg.fieldDecoder().convertDouble(x.doubleValue(), target, binding);
+				return true;
+			}
+			return false;
+
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Reads an array literal straight into a field holding an array of a primitive type.
+	 *
+	 * @return false if the field is not such an array or the next value is not an array literal.
+	 */
+
+	private boolean decodeArray(JSONTokener x, Object target, FieldBinding binding)
+			throws JSONException {
+
+		PrimitiveArrayDecoder primDecoder = PrimitiveArrayDecoder.of(binding.type());
+		if(primDecoder == null) {
+			return false;
+		}
+		char c = x.nextClean();
+		x.back();
+		if(c != '[') {
+			return false;
+		}
+		Object value = primDecoder.read(x);
+		if(value != null) {
+			binding.accessor().set(target, value);
+		}
+		else {
+			_L.log(Level.FINE, "unable to decode field " + binding.field().getName());
+		}
+		return true;
+	}
+
+	/**
+	 * Hands the input to the stream converter of the field.
+	 *
+	 * @return false if the converter cannot be instantiated, leaving the value to the field
+	 *         decoder to report.
+	 */
+
+	private boolean decodeConverted(JSONTokener x, Object target, FieldBinding binding)
+			throws JSONException {
+
+		StreamConverter conv;
+		try {
+			conv = (StreamConverter) binding.acquireConverter();
+		}
+		catch(ReflectiveOperationException exep) {
+			return false;
+		}
+		try {
+			binding.accessor().set(target, conv.read(x, binding.type()));
+		}
+		finally {
+			binding.releaseConverter(conv);
+		}
+		return true;
+	}
+
+	private static boolean isPlain(FieldBinding binding) {
+		return !binding.isRaw() && binding.converterType() == null;
+	}
+
+	private static boolean isConcrete(Class<?> type) {
+		return !type.isInterface() && !type.isArray() && !type.isPrimitive()
+				&& !Modifier.isAbstract(type.getModifiers());
+	}
+}
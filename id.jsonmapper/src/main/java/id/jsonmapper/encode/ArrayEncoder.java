@@ -84,44 +84,36 @@ class ArrayEncoder {
 			}
 		}
 
-		Class<?> itemCls = item.getClass();
-		if(itemCls.equals(Boolean.TYPE) || itemCls.equals(Boolean.class)) {
-			return (Boolean) item;
-		}
-		else if(itemCls.equals(Byte.TYPE) || itemCls.equals(Byte.class)) {
-			return new Integer((Byte) item);
-		}
-		else if(itemCls.equals(Character.TYPE) || itemCls.equals(Character.class)) {
-			return "" + item;
-		}
-		else if(itemCls.equals(Short.TYPE) || itemCls.equals(Short.class)) {
-			return new Integer((short) item);
-		}
-		else if(itemCls.equals(Integer.TYPE) || itemCls.equals(Integer.class)) {
-			return (Integer) item;
-		}
-		else if(itemCls.equals(Long.TYPE) || itemCls.equals(Long.class)) {
-			return (Long) item;
-		}
-		else if(itemCls.equals(Float.TYPE) || itemCls.equals(Float.class)) {
-			return new Double( (float) item);
-		}
-		else if(itemCls.equals(Double.TYPE) || itemCls.equals(Double.class)) {
-			return (Double) item;
-		}
-		else if(item instanceof CharSequence) {
+		switch(ValueKind.of(item.getClass())) {
+		case BYTE:
+		case SHORT:
+			return Integer.valueOf(((Number) item).intValue());
+
+		case CHAR:
+		case CHAR_SEQUENCE:
 			return item.toString();
-		}
-		else if(item instanceof List) {
+
+		case BOOLEAN:
+		case INT:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+		case BIG_NUMBER:
+			return item;
+
+		case LIST:
 			return convertList((List<?>) item, null);
-		}
-		else if(item instanceof Set) {
+
+		case SET:
 			return convertSet((Set<?>) item, null);
-		}
-		else if(item instanceof Map) {
+
+		case MAP:
 			return encoderReg.mapEncoder().convert((Map<?, ?>) item, null);
-		}
-		else {
+
+		case PRIMITIVE_ARRAY:
+			return PrimitiveArrayEncoder.of(item.getClass()).convert(item);
+
+		default:
 			return encoderReg.objectEncoder().convert(item);
 		}
 	}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.lang.invoke.MethodHandle;
+
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * The building blocks called by generated encoders, one call per mapped field. Each step mirrors
+ * the behavior of {@link FieldEncoder} for the corresponding field type. The method handles are
+ * constants of the generated class; once a step is inlined into it the JIT compiler reduces the
+ * handle invocation to a plain field load.
+ * <p>
+ * This class is internal support for the encoders and is not intended for use by applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class EncodeSteps {
+
+	private EncodeSteps() {
+		//static methods only
+	}
+
+	public static void encodeBoolean(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		boolean value;
+		try {
+			value = (boolean) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, value);
+	}
+
+	public static void encodeByte(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		byte value;
+		try {
+			value = (byte) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, (int) value);
+	}
+
+	public static void encodeChar(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		char value;
+		try {
+			value = (char) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, String.valueOf(value));
+	}
+
+	public static void encodeShort(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		short value;
+		try {
+			value = (short) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, (int) value);
+	}
+
+	public static void encodeInt(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		int value;
+		try {
+			value = (int) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, value);
+	}
+
+	public static void encodeLong(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		long value;
+		try {
+			value = (long) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, value);
+	}
+
+	public static void encodeFloat(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		float value;
+		try {
+			value = (float) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, value);
+	}
+
+	public static void encodeDouble(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		double value;
+		try {
+			value = (double) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		put(json, name, value);
+	}
+
+	public static void encodeString(Object source, JSONObject json, String name,
+			MethodHandle getter) {
+		String value;
+		try {
+			value = (String) (Object) getter.invokeExact(source);
+		}
+		catch(Throwable th) {
+			throw rethrow(th);
+		}
+		if(value != null && value.length() > 0) {
+			put(json, name, value);
+		}
+	}
+
+	/**
+	 * Encodes a field through the reflective path. Used for fields that have no specialized step.
+	 *
+	 * @param source the object being encoded.
+	 * @param json the JSON object being populated.
+	 * @param delegate the delegate constant of the generated class.
+	 */
+
+	public static void encodeField(Object source, JSONObject json, Object delegate) {
+		((EncoderCompiler.Delegate) delegate).encode(source, json);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void put(JSONObject json, String name, Object value) {
+		try {
+			json.put(name, value);
+		}
+		catch(JSONException exep) {
+			exep.printStackTrace();
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable th) {
+		if(th instanceof RuntimeException) {
+			return (RuntimeException) th;
+		}
+		if(th instanceof Error) {
+			throw (Error) th;
+		}
+		return new IllegalStateException(th);
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.ClassFileWriter;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.bind.GeneratedClassLoader;
+import id.jsonmapper.bind.TieredCodecs;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * Generates a dedicated {@link GeneratedEncoder} class for a type. The generated
+ * <code>encode</code> method is straight-line code: it creates the JSON object and then makes one
+ * {@link EncodeSteps} call per mapped field, passing the JSON name and the field getter as
+ * constants. Fields that have no specialized step, such as collections or fields with a converter,
+ * are handed back to the reflective {@link FieldEncoder}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+class EncoderCompiler implements TieredCodecs.Generator<GeneratedEncoder> {
+
+	private static final String ENCODER = "id/jsonmapper/encode/GeneratedEncoder";
+	private static final String STEPS   = "id/jsonmapper/encode/EncodeSteps";
+	private static final String LOADER  = "id/jsonmapper/bind/GeneratedClassLoader";
+	private static final String JSONOBJ = "id/jsonmapper/support/JSONObject";
+	private static final String OBJECT  = "java/lang/Object";
+
+	private static final String OBJECT_DESC = "Ljava/lang/Object;";
+	private static final String HANDLE_DESC = "Ljava/lang/invoke/MethodHandle;";
+	private static final String STEP_DESC   = "(Ljava/lang/Object;Lid/jsonmapper/support/JSONObject;"
+			+ "Ljava/lang/String;Ljava/lang/invoke/MethodHandle;)V";
+	private static final String FIELD_DESC  = "(Ljava/lang/Object;Lid/jsonmapper/support/JSONObject;"
+			+ "Ljava/lang/Object;)V";
+
+	private final ObjectEncoder                  objEncoder;
+	private final TieredCodecs<GeneratedEncoder> codecs;
+
+	EncoderCompiler(ObjectEncoder objEncoder) {
+		this.objEncoder = objEncoder;
+		codecs = new TieredCodecs<>(this);
+	}
+
+	/**
+	 * @param type the type about to be encoded.
+	 * @return the generated encoder for the type, or <code>null</code> if the type is to be
+	 * encoded reflectively.
+	 */
+
+	GeneratedEncoder lookup(Class<?> type) {
+		return codecs.lookup(type);
+	}
+
+	@Override
+	public GeneratedEncoder generate(Class<?> type) throws Exception {
+		String className = "id.jsonmapper.gen." + type.getName().replace('.', '_') + "$Encoder";
+		String internalName = className.replace('.', '/');
+
+		List<Object> constants = new ArrayList<>();
+		ClassFileWriter cfw = new ClassFileWriter(internalName, OBJECT, ENCODER);
+
+		ClassFileWriter.Code encode = cfw.method(ClassFileWriter.ACC_PUBLIC, "encode",
+				"(Ljava/lang/Object;)Lid/jsonmapper/support/JSONObject;");
+		encode.newObject(JSONOBJ).dup().invokespecial(JSONOBJ, "<init>", "()V").astore(2);
+
+		for(FieldBinding binding : BindingPlan.of(type).fields()) {
+			String constName = "C" + constants.size();
+			String step = stepFor(binding);
+			if(step != null) {
+				cfw.field(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+						constName, HANDLE_DESC);
+				constants.add(binding.getterHandle());
+				encode.aload(1).aload(2).ldcString(binding.name())
+						.getstatic(internalName, constName, HANDLE_DESC)
+						.invokestatic(STEPS, step, STEP_DESC);
+			}
+			else {
+				cfw.field(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+						constName, OBJECT_DESC);
+				constants.add(new Delegate(objEncoder, binding));
+				encode.aload(1).aload(2)
+						.getstatic(internalName, constName, OBJECT_DESC)
+						.invokestatic(STEPS, "encodeField", FIELD_DESC);
+			}
+		}
+		encode.aload(2).areturn();
+
+		cfw.method(ClassFileWriter.ACC_PUBLIC, "<init>", "()V")
+				.aload(0).invokespecial(OBJECT, "<init>", "()V").vreturn();
+
+		ClassFileWriter.Code clinit = cfw.method(ClassFileWriter.ACC_STATIC, "<clinit>", "()V");
+		clinit.ldcClass(internalName)
+				.invokestatic(LOADER, "constantsFor", "(Ljava/lang/Class;)[Ljava/lang/Object;")
+				.astore(0);
+		for(int i=0; i<constants.size(); i++) {
+			String desc = (constants.get(i) instanceof MethodHandle) ? HANDLE_DESC : OBJECT_DESC;
+			clinit.aload(0).iconst(i).aaload();
+			if(desc == HANDLE_DESC) {
+				clinit.checkcast("java/lang/invoke/MethodHandle");
+			}
+			clinit.putstatic(internalName, "C" + i, desc);
+		}
+		clinit.vreturn();
+
+		Class<?> genClass = GeneratedClassLoader.define(className, cfw.toByteArray(),
+				constants.toArray(), EncoderCompiler.class.getClassLoader());
+		return (GeneratedEncoder) genClass.newInstance();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static String stepFor(FieldBinding binding) {
+		if(binding.converterType() != null) {
+			return null;
+		}
+		if(!binding.type().isPrimitive()) {
+			return (binding.type().equals(String.class)) ? "encodeString" : null;
+		}
+		switch(binding.kind()) {
+		case BOOLEAN:
+			return "encodeBoolean";
+		case BYTE:
+			return "encodeByte";
+		case CHAR:
+			return "encodeChar";
+		case SHORT:
+			return "encodeShort";
+		case INT:
+			return "encodeInt";
+		case LONG:
+			return "encodeLong";
+		case FLOAT:
+			return "encodeFloat";
+		case DOUBLE:
+			return "encodeDouble";
+		default:
+			return null;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that hands a field back to the reflective path
+
+	static final class Delegate {
+
+		private final ObjectEncoder objEncoder;
+		private final FieldBinding  binding;
+
+		Delegate(ObjectEncoder objEncoder, FieldBinding binding) {
+			this.objEncoder = objEncoder;
+			this.binding = binding;
+		}
+
+		void encode(Object source, JSONObject jsonObj) {
+			objEncoder.convertField(source, jsonObj, binding);
+		}
+	}
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import id.jsonmapper.Converter;
+import id.jsonmapper.FieldConverter;
+import id.jsonmapper.StreamConverter;
+import id.jsonmapper.bind.FieldAccessor;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONByteTokener;
+import id.jsonmapper.support.JSONByteWriter;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class FieldEncoder {
+
+	private EncoderRegistry encoderReg;
+
+	public FieldEncoder(EncoderRegistry reg) {
+		encoderReg = reg;
+	}
+
+	public void convert(Object parentObj, FieldBinding binding, JSONObject jsonObj)
+			throws ReflectiveOperationException, JSONException {
+
+		if(binding.converterType() != null) {
+			FieldConverter fieldConv = binding.acquireConverter();
+			try {
+				convertUsing(parentObj, binding, jsonObj, fieldConv);
+			}
+			finally {
+				binding.releaseConverter(fieldConv);
+			}
+			return;
+		}
+
+		if(binding.kind().isPrimitive()) {
+			convertPrimitive(parentObj, binding, jsonObj);
+			return;
+		}
+
+		String name = binding.name();
+
+		switch(binding.kind()) {
+		case STRING:
+			String strVal = (String) retrieve(parentObj, binding);
+			if(strVal != null && strVal.length() > 0) {
+				jsonObj.put(name, strVal);
+			}
+			return;
+
+		case BIG_DECIMAL:
+		case BIG_INTEGER:
+			Object numVal = retrieve(parentObj, binding);
+			if(numVal != null) {
+				jsonObj.put(name, numVal);
+			}
+			return;
+
+		case ARRAY:
+			PrimitiveArrayEncoder primEncoder = PrimitiveArrayEncoder.of(binding.type());
+			if(primEncoder != null) {
+				Object arrVal = retrieve(parentObj, binding);
+				if(arrVal != null && primEncoder.length(arrVal) > 0) {
+					jsonObj.put(name, primEncoder.convert(arrVal));
+				}
+				return;
+			}
+			Object[] fieldVals = retrieveArray(parentObj, binding);
+			if(fieldVals != null && fieldVals.length > 0) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertArray(fieldVals, null);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case LIST:
+			List<?> listVal = (List<?>) retrieve(parentObj, binding);
+			if(listVal != null && !listVal.isEmpty()) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertList(listVal, null);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case SET:
+			Set<?> setVal = (Set<?>) retrieve(parentObj, binding);
+			if(setVal != null && !setVal.isEmpty()) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertSet(setVal, null);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case MAP:
+			Map<?, ?> mapVal = (Map<?, ?>) retrieve(parentObj, binding);
+			if(mapVal != null && !mapVal.isEmpty()) {
+				JSONObject jsonMap = encoderReg.mapEncoder().convert(mapVal, null);
+				jsonObj.put(name, jsonMap);
+			}
+			return;
+
+		default:
+			Object fieldVal = retrieve(parentObj, binding);
+			if(fieldVal != null) {
+				JSONObject json = encoderReg.objectEncoder().convert(fieldVal);
+				jsonObj.put(name, json);
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private void convertUsing(Object parentObj, FieldBinding binding, JSONObject jsonObj,
+			FieldConverter fieldConv) throws ReflectiveOperationException, JSONException {
+
+		String name = binding.name();
+
+		if(fieldConv instanceof StreamConverter) {
+			Object fieldVal = retrieve(parentObj, binding);
+			if(fieldVal != null) {
+				//the bytes written by the converter are parsed back into a tree node
+				JSONByteWriter out = new JSONByteWriter();
+				((StreamConverter) fieldConv).write(fieldVal, out);
+				jsonObj.put(name, new JSONByteTokener(out.toByteArray()).nextValue());
+			}
+			return;
+		}
+
+		Converter conv = (Converter) fieldConv;
+		switch(binding.kind()) {
+		case ARRAY:
+			Object[] fieldVals = retrieveArray(parentObj, binding);
+			if(fieldVals != null && fieldVals.length > 0) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertArray(fieldVals, conv);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case LIST:
+			List<?> listVal = (List<?>) retrieve(parentObj, binding);
+			if(listVal != null && !listVal.isEmpty()) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertList(listVal, conv);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case SET:
+			Set<?> setVal = (Set<?>) retrieve(parentObj, binding);
+			if(setVal != null && !setVal.isEmpty()) {
+				JSONArray jsonArr = encoderReg.arrayEncoder().convertSet(setVal, conv);
+				jsonObj.put(name, jsonArr);
+			}
+			return;
+
+		case MAP:
+			Map<?, ?> mapVal = (Map<?, ?>) retrieve(parentObj, binding);
+			if(mapVal != null && !mapVal.isEmpty()) {
+				JSONObject jsonMap = encoderReg.mapEncoder().convert(mapVal, conv);
+				jsonObj.put(name, jsonMap);
+			}
+			return;
+
+		default:
+			Object fieldVal = retrieve(parentObj, binding);
+			if(fieldVal != null) {
+				Optional<JSONObject> optjson = conv.object2Json(fieldVal);
+				if(optjson == null) {
+					JSONObject json = encoderReg.objectEncoder().convert(fieldVal);
+					jsonObj.put(name, json);
+				}
+				else {
+					jsonObj.put(name, optjson.get());
+				}
+			}
+		}
+	}
+
+	private void convertPrimitive(Object parentObj, FieldBinding binding, JSONObject jsonObj)
+			throws ReflectiveOperationException, JSONException {
+		FieldAccessor acc = binding.accessor();
+		String name = binding.name();
+
+		if(!binding.type().isPrimitive()) {
+			Object fieldVal = acc.get(parentObj);
+			if(fieldVal == null) {
+				return;
+			}
+			switch(binding.kind()) {
+			case BYTE:
+			case SHORT:
+				jsonObj.put(name, ((Number) fieldVal).intValue());
+				break;
+
+			case CHAR:
+				jsonObj.put(name, fieldVal.toString());
+				break;
+
+			default:
+				jsonObj.put(name, fieldVal);
+			}
+			return;
+		}
+
+		switch(binding.kind()) {
+		case BOOLEAN:
+			jsonObj.put(name, acc.getBoolean(parentObj));
+			break;
+
+		case BYTE:
+			jsonObj.put(name, (int) acc.getByte(parentObj));
+			break;
+
+		case CHAR:
+			jsonObj.put(name, String.valueOf(acc.getChar(parentObj)));
+			break;
+
+		case SHORT:
+			jsonObj.put(name, (int) acc.getShort(parentObj));
+			break;
+
+		case INT:
+			jsonObj.put(name, acc.getInt(parentObj));
+			break;
+
+		case LONG:
+			jsonObj.put(name, acc.getLong(parentObj));
+			break;
+
+		case FLOAT:
+			jsonObj.put(name, Float.valueOf(acc.getFloat(parentObj)));
+			break;
+
+		case DOUBLE:
+			jsonObj.put(name, acc.getDouble(parentObj));
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	private Object retrieve(Object parentObj, FieldBinding binding) {
+		return binding.accessor().get(parentObj);
+	}
+
+	private Object[] retrieveArray(Object parentObj, FieldBinding binding) {
+		Object fldVal = binding.accessor().get(parentObj);
+		if(fldVal == null) {
+			return null;
+		}
+		int length = Array.getLength(fldVal);
+		Object[] resultArr = new Object[length];
+		for(int i=0; i<length; i++) {
+			resultArr[i] = Array.get(fldVal, i);
+		}
+		return resultArr;
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * Implemented by the encoder classes generated at runtime for individual types. A generated encoder
+ * converts all mapped fields of an instance of its type.
+ * <p>
+ * This interface is internal support for the encoders and is not intended for use by applications.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public interface GeneratedEncoder {
+
+	JSONObject encode(Object obj);
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONByteWriter;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+public class Object2Json {
+
+	/**
+	 * The encoders hold no per-object state, hence a single registry is shared by all instances
+	 * across all threads.
+	 */
+
+	private static final EncoderRegistryImpl reg = new EncoderRegistryImpl();
+	private static final StreamEncoder       stream = new StreamEncoder(reg);
+
+	private final boolean scriptSafe;
+
+	public Object2Json() {
+		this(true);
+	}
+
+	/**
+	 * @param scriptSafe whether compact output also escapes <code>&lt;/</code>, the C1 control
+	 * characters and the characters from U+2000 to U+20FF, which include the line and paragraph
+	 * separators, so that it can be embedded in HTML and JavaScript. This is the default. Without
+	 * it, only the escapes required by JSON are applied. Pretty printed output is always
+	 * script-safe.
+	 */
+
+	public Object2Json(boolean scriptSafe) {
+		this.scriptSafe = scriptSafe;
+	}
+
+	/**
+	 * Converts an object or a collection to its compact UTF-8 encoded JSON text, the same text
+	 * that the other compact overloads write.
+	 *
+	 * @param obj the object to convert.
+	 * @return the JSON text, or <code>null</code> for a collection that is neither a list nor a
+	 *         set.
+	 */
+
+	public byte[] convert(Object obj) {
+		return convert(obj, false);
+	}
+
+	/**
+	 * Writes the compact UTF-8 encoded JSON text of an object or a collection to a stream. The
+	 * stream is neither flushed nor closed.
+	 *
+	 * @param obj the object to convert.
+	 * @param out the stream to write to.
+	 * @throws JSONException if the stream fails; the cause holds the <code>IOException</code>.
+	 */
+
+	public void convert(Object obj, OutputStream out) {
+		JSONByteWriter writer = new JSONByteWriter(out).scriptSafe(scriptSafe);
+		encode(obj, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Writes the compact UTF-8 encoded JSON text of an object or a collection into the remaining
+	 * space of a buffer, and advances the position of the buffer past the text.
+	 *
+	 * @param obj the object to convert.
+	 * @param buf the buffer to write to.
+	 * @throws java.nio.BufferOverflowException if the text does not fit in the buffer.
+	 */
+
+	public void convert(Object obj, ByteBuffer buf) {
+		JSONByteWriter writer = new JSONByteWriter(buf).scriptSafe(scriptSafe);
+		encode(obj, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Writes the compact UTF-8 encoded JSON text of an object or a collection into an array.
+	 *
+	 * @param obj the object to convert.
+	 * @param dest the array to write to.
+	 * @param offset the index in the array at which the text starts.
+	 * @return the number of bytes written.
+	 * @throws java.nio.BufferOverflowException if the text does not fit in the array.
+	 */
+
+	public int convert(Object obj, byte[] dest, int offset) {
+		JSONByteWriter writer = new JSONByteWriter(dest, offset).scriptSafe(scriptSafe);
+		encode(obj, writer);
+		return (int) writer.size();
+	}
+
+	/**
+	 * Converts an object or a collection to its UTF-8 encoded JSON text.
+	 *
+	 * @param obj the object to convert.
+	 * @param pretty whether the text is indented with two spaces per level; otherwise it is
+	 *        compact, as written by {@link #convert(Object)}.
+	 * @return the JSON text, or <code>null</code> for a collection that is neither a list nor a
+	 *         set.
+	 */
+
+	public byte[] convert(Object obj, boolean pretty) {
+		if(obj instanceof Collection && !(obj instanceof List) && !(obj instanceof Set)) {
+			return null;
+		}
+		if(!pretty) {
+			JSONByteWriter writer = new JSONByteWriter().scriptSafe(scriptSafe);
+			encode(obj, writer);
+			return writer.toByteArray();
+		}
+		if(obj instanceof List) {
+			JSONArray jsonArr = reg.arrayEncoder().convertList((List<?>) obj, null);
+			return jsonArr.toString(2).getBytes(StandardCharsets.UTF_8);
+		}
+		if(obj instanceof Set) {
+			JSONArray jsonArr = reg.arrayEncoder().convertSet((Set<?>) obj, null);
+			return jsonArr.toString(2).getBytes(StandardCharsets.UTF_8);
+		}
+		JSONObject jsonObj = reg.objectEncoder().convert(obj);
+		if(jsonObj != null) {
+			return jsonObj.toString(2).getBytes(StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private void encode(Object obj, JSONByteWriter writer) {
+		if(obj instanceof List || obj instanceof Set) {
+			stream.encodeList((Collection<?>) obj, writer);
+		}
+		else {
+			stream.encode(obj, writer);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that represents a EncoderRegistry
+
+	private static class EncoderRegistryImpl implements EncoderRegistry {
+
+		private final ObjectEncoder objEncoder;
+		private final FieldEncoder  fldEncoder;
+		private final ArrayEncoder  arrEncoder;
+		private final MapEncoder    mapEncoder;
+
+		EncoderRegistryImpl() {
+			objEncoder = new ObjectEncoder(this);
+			fldEncoder = new FieldEncoder(this);
+			arrEncoder = new ArrayEncoder(this);
+			mapEncoder = new MapEncoder(this);
+		}
+
+		@Override
+		public ObjectEncoder objectEncoder() {
+			return objEncoder;
+		}
+
+		@Override
+		public FieldEncoder fieldEncoder() {
+			return fldEncoder;
+		}
+
+		@Override
+		public ArrayEncoder arrayEncoder() {
+			return arrEncoder;
+		}
+
+		@Override
+		public MapEncoder mapEncoder() {
+			return mapEncoder;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.support.JSONException;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * @author indroneel
+ *
+ */
+
+class ObjectEncoder {
+
+	private EncoderRegistry encoderReg;
+	private EncoderCompiler compiler;
+
+	public ObjectEncoder(EncoderRegistry reg) {
+		encoderReg = reg;
+		compiler = new EncoderCompiler(this);
+	}
+
+	public JSONObject convert(Object obj) {
+		GeneratedEncoder codec = compiler.lookup(obj.getClass());
+		if(codec != null) {
+			return codec.encode(obj);
+		}
+
+		JSONObject jsonObj = new JSONObject();
+		for(FieldBinding binding : BindingPlan.of(obj.getClass()).fields()) {
+			convertField(obj, jsonObj, binding);
+		}
+		return jsonObj;
+	}
+
+	void convertField(Object obj, JSONObject jsonObj, FieldBinding binding) {
+		try {
+			encoderReg.fieldEncoder().convert(obj, binding, jsonObj);
+		}
+		catch(ReflectiveOperationException | JSONException exep) {
+			exep.printStackTrace();
+		}
+	}
+}
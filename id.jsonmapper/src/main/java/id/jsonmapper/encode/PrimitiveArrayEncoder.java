@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import id.jsonmapper.support.JSONArray;
+import id.jsonmapper.support.JSONByteWriter;
+
+/**
+ * Encodes an array of a primitive type, reading the elements straight from the typed array instead
+ * of through <code>java.lang.reflect.Array</code>. Elements are converted as {@link ArrayEncoder}
+ * converts their boxed values: bytes and shorts as integers, and chars as strings of one
+ * character. When streaming, no element is boxed.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+abstract class PrimitiveArrayEncoder {
+
+	private static final PrimitiveArrayEncoder BOOLEANS = new Booleans();
+	private static final PrimitiveArrayEncoder BYTES = new Bytes();
+	private static final PrimitiveArrayEncoder CHARS = new Chars();
+	private static final PrimitiveArrayEncoder SHORTS = new Shorts();
+	private static final PrimitiveArrayEncoder INTS = new Ints();
+	private static final PrimitiveArrayEncoder LONGS = new Longs();
+	private static final PrimitiveArrayEncoder FLOATS = new Floats();
+	private static final PrimitiveArrayEncoder DOUBLES = new Doubles();
+
+	/**
+	 * @return the encoder for the given array type, or <code>null</code> if it is not an array of
+	 *         a primitive type.
+	 */
+
+	public static PrimitiveArrayEncoder of(Class<?> type) {
+		if(type == boolean[].class) {
+			return BOOLEANS;
+		}
+		if(type == byte[].class) {
+			return BYTES;
+		}
+		if(type == char[].class) {
+			return CHARS;
+		}
+		if(type == short[].class) {
+			return SHORTS;
+		}
+		if(type == int[].class) {
+			return INTS;
+		}
+		if(type == long[].class) {
+			return LONGS;
+		}
+		if(type == float[].class) {
+			return FLOATS;
+		}
+		if(type == double[].class) {
+			return DOUBLES;
+		}
+		return null;
+	}
+
+	public abstract int length(Object array);
+
+	public abstract JSONArray convert(Object array);
+
+	public abstract void write(Object array, JSONByteWriter out);
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes that encode the individual array types
+
+	private static class Booleans extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((boolean[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(boolean item : (boolean[]) array) {
+				jsonArr.put(item);
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			boolean[] items = (boolean[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeBoolean(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Bytes extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((byte[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(byte item : (byte[]) array) {
+				jsonArr.put(Integer.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			byte[] items = (byte[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeLong(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Chars extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((char[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(char item : (char[]) array) {
+				jsonArr.put(String.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			char[] items = (char[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeString(String.valueOf(items[i]));
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Shorts extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((short[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(short item : (short[]) array) {
+				jsonArr.put(Integer.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			short[] items = (short[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeLong(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Ints extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((int[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(int item : (int[]) array) {
+				jsonArr.put(Integer.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			int[] items = (int[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeLong(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Longs extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((long[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(long item : (long[]) array) {
+				jsonArr.put(Long.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			long[] items = (long[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeLong(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Floats extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((float[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(float item : (float[]) array) {
+				jsonArr.put(Float.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			float[] items = (float[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeFloat(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+
+	private static class Doubles extends PrimitiveArrayEncoder {
+
+		@Override
+		public int length(Object array) {
+			return ((double[]) array).length;
+		}
+
+		@Override
+		public JSONArray convert(Object array) {
+			JSONArray jsonArr = new JSONArray();
+			for(double item : (double[]) array) {
+				jsonArr.put(Double.valueOf(item));
+			}
+			return jsonArr;
+		}
+
+		@Override
+		public void write(Object array, JSONByteWriter out) {
+			double[] items = (double[]) array;
+			out.writeByte('[');
+			for(int i=0; i<items.length; i++) {
+				if(i > 0) {
+					out.writeByte(',');
+				}
+				out.writeDouble(items[i]);
+			}
+			out.writeByte(']');
+		}
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+import id.jsonmapper.StreamConverter;
+import id.jsonmapper.bind.BindingPlan;
+import id.jsonmapper.bind.FieldAccessor;
+import id.jsonmapper.bind.FieldBinding;
+import id.jsonmapper.support.JSONByteWriter;
+import id.jsonmapper.support.JSONObject;
+
+/**
+ * Encodes an object straight into a {@link JSONByteWriter}, without building a
+ * <code>JSONObject</code> tree. The output holds the same members and values as the tree built by
+ * {@link ObjectEncoder}, with the members in the order of the binding plan.
+ * <p>
+ * Members are written with their names pre-encoded per class. A member mapped by several fields,
+ * or by a field with a converter, is produced by {@link ObjectEncoder#convertField} into a scratch
+ * object and written from there, so that such members keep the exact semantics of the tree. The
+ * same is done for non-finite floating point values, which the tree reports and leaves out.
+ * Members mapped by a single field with a {@link StreamConverter} are written by the converter
+ * straight into the output.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+class StreamEncoder {
+
+	private static final ClassValue<Member[]> MEMBERS = new ClassValue<Member[]>() {
+
+		@Override
+		protected Member[] computeValue(Class<?> type) {
+			BindingPlan plan = BindingPlan.of(type);
+			Member[] members = new Member[plan.memberCount()];
+			for(int i=0; i<members.length; i++) {
+				members[i] = new Member(plan.membersAt(i));
+			}
+			return members;
+		}
+	};
+
+	private EncoderRegistry encoderReg;
+
+	public StreamEncoder(EncoderRegistry reg) {
+		encoderReg = reg;
+	}
+
+	public void encode(Object obj, JSONByteWriter out) {
+		out.writeByte('{');
+		boolean first = true;
+		for(Member member : MEMBERS.get(obj.getClass())) {
+			if(writeMember(obj, member, first, out)) {
+				first = false;
+			}
+		}
+		out.writeByte('}');
+	}
+
+	public void encodeList(Collection<?> items, JSONByteWriter out) {
+		out.writeByte('[');
+		boolean first = true;
+		for(Object item : items) {
+			if(writeItem(item, first, out)) {
+				first = false;
+			}
+		}
+		out.writeByte(']');
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private boolean writeMember(Object obj, Member member, boolean first, JSONByteWriter out) {
+		if(member.streamed != null) {
+			return writeStreamed(obj, member, first, out);
+		}
+		if(member.direct == null) {
+			return writeConverted(obj, member, first, out);
+		}
+
+		FieldBinding binding = member.direct;
+		FieldAccessor acc = binding.accessor();
+
+		if(binding.type().isPrimitive()) {
+			switch(binding.kind()) {
+			case BOOLEAN:
+				begin(member, first, out).writeBoolean(acc.getBoolean(obj));
+				return true;
+
+			case BYTE:
+				begin(member, first, out).writeLong(acc.getByte(obj));
+				return true;
+
+			case CHAR:
+				begin(member, first, out).writeString(String.valueOf(acc.getChar(obj)));
+				return true;
+
+			case SHORT:
+				begin(member, first, out).writeLong(acc.getShort(obj));
+				return true;
+
+			case INT:
+				begin(member, first, out).writeLong(acc.getInt(obj));
+				return true;
+
+			case LONG:
+				begin(member, first, out).writeLong(acc.getLong(obj));
+				return true;
+
+			case FLOAT:
+				float fval = acc.getFloat(obj);
+				if(Float.isNaN(fval) || Float.isInfinite(fval)) {
+					return writeConverted(obj, member, first, out);
+				}
+				begin(member, first, out).writeFloat(fval);
+				return true;
+
+			case DOUBLE:
+				double dval = acc.getDouble(obj);
+				if(Double.isNaN(dval) || Double.isInfinite(dval)) {
+					return writeConverted(obj, member, first, out);
+				}
+				begin(member, first, out).writeDouble(dval);
+				return true;
+
+			default:
+				return false;
+			}
+		}
+
+		Object fieldVal = acc.get(obj);
+		if(fieldVal == null) {
+			return false;
+		}
+
+		switch(binding.kind()) {
+		case STRING:
+			String strVal = (String) fieldVal;
+			if(strVal.length() == 0) {
+				return false;
+			}
+			begin(member, first, out).writeString(strVal);
+			return true;
+
+		case BIG_DECIMAL:
+		case BIG_INTEGER:
+			begin(member, first, out).writeNumber((Number) fieldVal);
+			return true;
+
+		case ARRAY:
+			PrimitiveArrayEncoder primEncoder = PrimitiveArrayEncoder.of(binding.type());
+			if(primEncoder != null) {
+				if(primEncoder.length(fieldVal) == 0) {
+					return false;
+				}
+				primEncoder.write(fieldVal, begin(member, first, out));
+				return true;
+			}
+			int length = Array.getLength(fieldVal);
+			if(length == 0) {
+				return false;
+			}
+			begin(member, first, out).writeByte('[');
+			boolean firstItem = true;
+			for(int i=0; i<length; i++) {
+				if(writeItem(Array.get(fieldVal, i), firstItem, out)) {
+					firstItem = false;
+				}
+			}
+			out.writeByte(']');
+			return true;
+
+		case LIST:
+		case SET:
+			Collection<?> items = (Collection<?>) fieldVal;
+			if(items.isEmpty()) {
+				return false;
+			}
+			begin(member, first, out);
+			encodeList(items, out);
+			return true;
+
+		case MAP:
+			Map<?, ?> mapVal = (Map<?, ?>) fieldVal;
+			if(mapVal.isEmpty()) {
+				return false;
+			}
+			begin(member, first, out);
+			writeMap(mapVal, out);
+			return true;
+
+		default:
+			if(binding.kind().isPrimitive()) {
+				return writeBoxed(fieldVal, obj, member, first, out);
+			}
+			begin(member, first, out);
+			encode(fieldVal, out);
+			return true;
+		}
+	}
+
+	private boolean writeBoxed(Object fieldVal, Object obj, Member member, boolean first,
+			JSONByteWriter out) {
+		switch(member.direct.kind()) {
+		case BYTE:
+		case SHORT:
+			begin(member, first, out).writeLong(((Number) fieldVal).intValue());
+			break;
+
+		case FLOAT:
+			float fval = (Float) fieldVal;
+			if(Float.isNaN(fval) || Float.isInfinite(fval)) {
+				return writeConverted(obj, member, first, out);
+			}
+			begin(member, first, out).writeFloat(fval);
+			break;
+
+		case DOUBLE:
+			double dval = (Double) fieldVal;
+			if(Double.isNaN(dval) || Double.isInfinite(dval)) {
+				return writeConverted(obj, member, first, out);
+			}
+			begin(member, first, out).writeDouble(dval);
+			break;
+
+		case CHAR:
+			begin(member, first, out).writeString(fieldVal.toString());
+			break;
+
+		default:
+			begin(member, first, out).writeValue(fieldVal);
+		}
+		return true;
+	}
+
+	/**
+	 * Hands the member to the stream converter of its field. A converter that cannot be
+	 * instantiated is left to the tree encoder to report.
+	 */
+
+	private boolean writeStreamed(Object obj, Member member, boolean first, JSONByteWriter out) {
+		FieldBinding binding = member.streamed;
+		StreamConverter conv;
+		try {
+			conv = (StreamConverter) binding.acquireConverter();
+		}
+		catch(ReflectiveOperationException exep) {
+			return writeConverted(obj, member, first, out);
+		}
+		try {
+			Object fieldVal = binding.accessor().get(obj);
+			if(fieldVal == null) {
+				return false;
+			}
+			conv.write(fieldVal, begin(member, first, out));
+			return true;
+		}
+		finally {
+			binding.releaseConverter(conv);
+		}
+	}
+
+	/**
+	 * Produces the member through the tree encoder and writes the value it yields, if any.
+	 */
+
+	private boolean writeConverted(Object obj, Member member, boolean first, JSONByteWriter out) {
+		JSONObject scratch = new JSONObject();
+		for(FieldBinding binding : member.bindings) {
+			encoderReg.objectEncoder().convertField(obj, scratch, binding);
+		}
+		Object value = scratch.opt(member.bindings[0].name());
+		if(value == null) {
+			return false;
+		}
+		begin(member, first, out).writeValue(value);
+		return true;
+	}
+
+	/**
+	 * Writes an element of an array, list or set as {@link ArrayEncoder} converts it. Elements
+	 * that are <code>null</code> are left out.
+	 */
+
+	private boolean writeItem(Object item, boolean first, JSONByteWriter out) {
+		if(item == null) {
+			return false;
+		}
+		if(!first) {
+			out.writeByte(',');
+		}
+		writeOne(item, out);
+		return true;
+	}
+
+	private void writeMap(Map<?, ?> map, JSONByteWriter out) {
+		out.writeByte('{');
+		boolean first = true;
+		for(Map.Entry<?, ?> entry : map.entrySet()) {
+			Object value = entry.getValue();
+			if(!(entry.getKey() instanceof CharSequence) || value == null) {
+				continue;
+			}
+			if(!first) {
+				out.writeByte(',');
+			}
+			out.writeString(entry.getKey().toString());
+			out.writeByte(':');
+			if(ValueKind.of(value.getClass()) == ValueKind.OBJECT_ARRAY) {
+				Object[] arr = (Object[]) value;
+				out.writeByte('[');
+				boolean firstItem = true;
+				for(Object item : arr) {
+					if(writeItem(item, firstItem, out)) {
+						firstItem = false;
+					}
+				}
+				out.writeByte(']');
+			}
+			else {
+				writeOne(value, out);
+			}
+			first = false;
+		}
+		out.writeByte('}');
+	}
+
+	private void writeOne(Object item, JSONByteWriter out) {
+		switch(ValueKind.of(item.getClass())) {
+		case BOOLEAN:
+			out.writeBoolean((Boolean) item);
+			break;
+
+		case BYTE:
+		case SHORT:
+		case INT:
+		case LONG:
+			out.writeLong(((Number) item).longValue());
+			break;
+
+		case CHAR:
+		case CHAR_SEQUENCE:
+			out.writeString(item.toString());
+			break;
+
+		case FLOAT:
+			out.writeFloat((Float) item);
+			break;
+
+		case DOUBLE:
+			out.writeDouble((Double) item);
+			break;
+
+		case BIG_NUMBER:
+			out.writeNumber((Number) item);
+			break;
+
+		case LIST:
+		case SET:
+			encodeList((Collection<?>) item, out);
+			break;
+
+		case MAP:
+			writeMap((Map<?, ?>) item, out);
+			break;
+
+		case PRIMITIVE_ARRAY:
+			PrimitiveArrayEncoder.of(item.getClass()).write(item, out);
+			break;
+
+		default:
+			encode(item, out);
+		}
+	}
+
+	private static JSONByteWriter begin(Member member, boolean first, JSONByteWriter out) {
+		if(!first) {
+			out.writeByte(',');
+		}
+		return out.writeRaw(member.name);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that represents a JSON member of a class
+
+	private static class Member {
+
+		private final byte[]         name;
+		private final FieldBinding[] bindings;
+		private final FieldBinding   direct;
+		private final FieldBinding   streamed;
+
+		Member(FieldBinding[] bindings) {
+			this.name = JSONByteWriter.encodeName(bindings[0].name());
+			this.bindings = bindings;
+			this.direct = (bindings.length == 1 && bindings[0].converterType() == null)
+					? bindings[0] : null;
+			this.streamed = (bindings.length == 1 && bindings[0].hasStreamConverter())
+					? bindings[0] : null;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The category of an element of an array, list or set, or of a value of a map, resolved from the
+ * runtime class of the value. The kind is computed once per class and attached to it through a
+ * {@link ClassValue}, so a collection with elements of the same class, or a map with values of a
+ * handful of classes, is dispatched by a single switch per element.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+enum ValueKind {
+
+	BOOLEAN,
+	BYTE,
+	CHAR,
+	SHORT,
+	INT,
+	LONG,
+	FLOAT,
+	DOUBLE,
+	BIG_NUMBER,
+	CHAR_SEQUENCE,
+	LIST,
+	SET,
+	MAP,
+	PRIMITIVE_ARRAY,
+	OBJECT_ARRAY,
+	OBJECT;
+
+	private static final ClassValue<ValueKind> KINDS = new ClassValue<ValueKind>() {
+
+		@Override
+		protected ValueKind computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+	public static ValueKind of(Class<?> type) {
+		return KINDS.get(type);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static ValueKind resolve(Class<?> type) {
+		if(type.equals(Boolean.class)) {
+			return BOOLEAN;
+		}
+		if(type.equals(Byte.class)) {
+			return BYTE;
+		}
+		if(type.equals(Character.class)) {
+			return CHAR;
+		}
+		if(type.equals(Short.class)) {
+			return SHORT;
+		}
+		if(type.equals(Integer.class)) {
+			return INT;
+		}
+		if(type.equals(Long.class)) {
+			return LONG;
+		}
+		if(type.equals(Float.class)) {
+			return FLOAT;
+		}
+		if(type.equals(Double.class)) {
+			return DOUBLE;
+		}
+		if(BigDecimal.class.isAssignableFrom(type) || BigInteger.class.isAssignableFrom(type)) {
+			return BIG_NUMBER;
+		}
+		if(CharSequence.class.isAssignableFrom(type)) {
+			return CHAR_SEQUENCE;
+		}
+		if(List.class.isAssignableFrom(type)) {
+			return LIST;
+		}
+		if(Set.class.isAssignableFrom(type)) {
+			return SET;
+		}
+		if(Map.class.isAssignableFrom(type)) {
+			return MAP;
+		}
+		if(PrimitiveArrayEncoder.of(type) != null) {
+			return PRIMITIVE_ARRAY;
+		}
+		if(type.isArray()) {
+			return OBJECT_ARRAY;
+		}
+		return OBJECT;
+	}
+}
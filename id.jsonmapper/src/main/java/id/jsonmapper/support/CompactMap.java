@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The map behind a {@link JSONObject}. Up to {@link #SCAN_LIMIT} keys and values are kept in two
+ * parallel arrays, in the order the keys were first put, without an entry object per member, and
+ * keys are found by a linear scan. A map that grows beyond that moves its members into a
+ * <code>LinkedHashMap</code>, which keeps the order, removes keys in constant time and keeps keys
+ * with colliding hashes in balanced trees, so that a document crafted with such keys cannot make
+ * lookups linear.
+ * <p>
+ * The map is not synchronized and its iterators are not fail-fast while it is small.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class CompactMap extends AbstractMap<String, Object> {
+
+	private static final int SCAN_LIMIT = 8;
+	private static final int INITIAL_CAPACITY = 4;
+
+	private static final String[] NO_KEYS = {};
+	private static final Object[] NO_VALUES = {};
+
+	private String[]                      keys = NO_KEYS;
+	private Object[]                      values = NO_VALUES;
+	private int                           size;
+	private LinkedHashMap<String, Object> large;
+	private Set<String>                   keySet;
+	private Set<Entry<String, Object>>    entrySet;
+
+	@Override
+	public int size() {
+		return (large != null) ? large.size() : size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (large != null) ? large.containsKey(key) : indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if(large != null) {
+			return large.get(key);
+		}
+		int i = indexOf(key);
+		return (i >= 0) ? values[i] : null;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if(large != null) {
+			return large.put(key, value);
+		}
+		int i = indexOf(key);
+		if(i >= 0) {
+			Object old = values[i];
+			values[i] = value;
+			return old;
+		}
+		append(key, value);
+		return null;
+	}
+
+	/**
+	 * Puts the value with a single lookup of the key.
+	 */
+
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		if(large != null) {
+			return large.putIfAbsent(key, value);
+		}
+		int i = indexOf(key);
+		if(i >= 0) {
+			return values[i];
+		}
+		append(key, value);
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if(large != null) {
+			return large.remove(key);
+		}
+		int i = indexOf(key);
+		return (i >= 0) ? removeAt(i) : null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		large = null;
+	}
+
+	@Override
+	public Set<String> keySet() {
+		if(keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if(entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private int indexOf(Object key) {
+		if(key == null) {
+			return -1;
+		}
+		for(int i=0; i<size; i++) {
+			if(key.equals(keys[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void append(String key, Object value) {
+		if(size == SCAN_LIMIT) {
+			moveToLarge();
+			large.put(key, value);
+			return;
+		}
+		if(size == keys.length) {
+			int capacity = (size == 0) ? INITIAL_CAPACITY : size << 1;
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+	}
+
+	private Object removeAt(int i) {
+		Object old = values[i];
+		int moved = size - i - 1;
+		if(moved > 0) {
+			System.arraycopy(keys, i + 1, keys, i, moved);
+			System.arraycopy(values, i + 1, values, i, moved);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		return old;
+	}
+
+	/**
+	 * Moves the members from the arrays into a hash map, in the same order.
+	 */
+
+	private void moveToLarge() {
+		large = new LinkedHashMap<>(SCAN_LIMIT << 2);
+		for(int i=0; i<size; i++) {
+			large.put(keys[i], values[i]);
+		}
+		keys = NO_KEYS;
+		values = NO_VALUES;
+		size = 0;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes for the views of the map
+
+	private abstract class Cursor<E> implements Iterator<E> {
+
+		private int next;
+		private int last = -1;
+
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		protected int nextIndex() {
+			if(next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			if(last < 0) {
+				throw new IllegalStateException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<String> {
+
+		@Override
+		public int size() {
+			return CompactMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			if(large != null) {
+				return large.keySet().remove(key);
+			}
+			int i = indexOf(key);
+			if(i < 0) {
+				return false;
+			}
+			removeAt(i);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			CompactMap.this.clear();
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			if(large != null) {
+				return large.keySet().iterator();
+			}
+			return new Cursor<String>() {
+
+				@Override
+				public String next() {
+					return keys[nextIndex()];
+				}
+			};
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+		@Override
+		public int size() {
+			return CompactMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			CompactMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<String, Object>> iterator() {
+			if(large != null) {
+				return large.entrySet().iterator();
+			}
+			return new Cursor<Entry<String, Object>>() {
+
+				@Override
+				public Entry<String, Object> next() {
+					return new Member(nextIndex());
+				}
+			};
+		}
+	}
+
+	/**
+	 * An entry that reads and writes the arrays at its position, valid until the map is
+	 * structurally modified.
+	 */
+
+	private final class Member implements Map.Entry<String, Object> {
+
+		private final int position;
+
+		Member(int position) {
+			this.position = position;
+		}
+
+		@Override
+		public String getKey() {
+			return keys[position];
+		}
+
+		@Override
+		public Object getValue() {
+			return values[position];
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Object old = values[position];
+			values[position] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			return Objects.equals(getKey(), other.getKey())
+					&& Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
@@ -101,37 +101,15 @@ public class JSONArray implements Iterable<Object> {
 	 * @param x
 	 *            A JSONTokener
 	 * @throws JSONException
-	 *             If there is a syntax error.
+	 *             If there is a syntax error, or if the text nests objects
+	 *             and arrays deeper than the limits of the tokener allow.
 	 */
 	public JSONArray(JSONTokener x) throws JSONException {
 		this();
 		if (x.nextClean() != '[') {
 			throw x.syntaxError("A JSONArray text must start with '['");
 		}
-		if (x.nextClean() != ']') {
-			x.back();
-			for (;;) {
-				if (x.nextClean() == ',') {
-					x.back();
-					this.myArrayList.add(JSONObject.NULL);
-				} else {
-					x.back();
-					this.myArrayList.add(x.nextValue());
-				}
-				switch (x.nextClean()) {
-				case ',':
-					if (x.nextClean() == ']') {
-						return;
-					}
-					x.back();
-					break;
-				case ']':
-					return;
-				default:
-					throw x.syntaxError("Expected a ',' or ']'");
-				}
-			}
-		}
+		TreeParser.parse(x, this);
 	}
 
 	/**
@@ -145,7 +123,7 @@ public class JSONArray implements Iterable<Object> {
 	 *             If there is a syntax error.
 	 */
 	public JSONArray(String source) throws JSONException {
-		this(new JSONTokener(source));
+		this(new JSONStringTokener(source));
 	}
 
 	/**
@@ -250,6 +228,27 @@ public class JSONArray implements Iterable<Object> {
 		}
 	}
 
+	/**
+	 * Get the float value associated with an index. A number is rounded to the
+	 * float nearest to its decimal text.
+	 *
+	 * @param index
+	 *            The index must be between 0 and length() - 1.
+	 * @return The value.
+	 * @throws JSONException
+	 *             If the key is not found or if the value cannot be converted
+	 *             to a number.
+	 */
+	public float getFloat(int index) throws JSONException {
+		Object object = this.get(index);
+		try {
+			return object instanceof Number ? ((Number) object).floatValue()
+					: NumberParser.parseFloat((String) object);
+		} catch (Exception e) {
+			throw new JSONException("JSONArray[" + index + "] is not a number.");
+		}
+	}
+
 	/**
 	* Get the enum value associated with an index.
 	*
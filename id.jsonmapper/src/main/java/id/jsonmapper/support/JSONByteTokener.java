@@ -0,0 +1,745 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link JSONTokener} that reads UTF-8 encoded JSON text directly from a byte array. Structural
+ * characters, whitespace and ASCII strings are scanned byte by byte; UTF-8 sequences are decoded
+ * only where they occur. Malformed sequences are replaced with <code>U+FFFD</code>, as an
+ * <code>InputStreamReader</code> would do.
+ * <p>
+ * Only the byte offset is tracked while reading. The character index, line and column reported
+ * in syntax errors are computed when an error is raised, by rescanning the input up to the
+ * offset.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class JSONByteTokener extends JSONTokener {
+
+	private final byte[] buf;
+	private final int    start;
+	private final int    limit;
+	private int          pos;
+	private char         pending;
+	private int          markPos;
+	private char         markPending;
+	private boolean      backed;
+	private boolean      eof;
+	private int          eofReads;
+	private boolean      crAgain;
+	private int          extraLines;
+	private long         longValue;
+	private int          numberStart;
+	private int          numberEnd;
+
+	public JSONByteTokener(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	public JSONByteTokener(byte[] data, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > data.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+		}
+		buf = data;
+		start = offset;
+		limit = offset + length;
+		pos = offset;
+		markPos = -1;
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer. The position of the buffer is not changed. The
+	 * contents of a buffer without an accessible array are copied first.
+	 *
+	 * @param data the buffer holding the JSON text.
+	 */
+
+	public JSONByteTokener(ByteBuffer data) {
+		this(arrayOf(data), data.hasArray() ? data.arrayOffset() + data.position() : 0,
+				data.remaining());
+	}
+
+	/**
+	 * The size of the input is checked against the maximum document size right away.
+	 */
+
+	@Override
+	public void setLimits(JSONLimits limits) {
+		super.setLimits(limits);
+		limits.checkDocumentSize(limit - start);
+	}
+
+	@Override
+	public void back() throws JSONException {
+		if(backed || markPos < 0) {
+			throw new JSONException("Stepping back two steps is not supported");
+		}
+		if(markPos >= limit && markPending == 0) {
+			eofReads--;
+		}
+		pos = markPos;
+		pending = markPending;
+		backed = true;
+		eof = false;
+	}
+
+	@Override
+	public boolean end() {
+		return eof;
+	}
+
+	@Override
+	public char next() throws JSONException {
+		boolean again = backed;
+		reread();
+		markPos = pos;
+		markPending = pending;
+		if(pending != 0) {
+			char c = pending;
+			pending = 0;
+			crAgain = false;
+			return c;
+		}
+		if(pos >= limit) {
+			eofReads++;
+			crAgain = false;
+			//a character read again after a step back does not set the end flag
+			eof |= !again;
+			return 0;
+		}
+		int b = buf[pos];
+		if(b > 0) {
+			pos++;
+			crAgain = again && b == '\r';
+			return (char) b;
+		}
+		crAgain = false;
+		if(b == 0) {
+			pos++;
+			eof |= !again;
+			return 0;
+		}
+		long seq = decode(pos);
+		pos += length(seq);
+		int cp = codePoint(seq);
+		if(cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			pending = Character.lowSurrogate(cp);
+			return Character.highSurrogate(cp);
+		}
+		return (char) cp;
+	}
+
+	@Override
+	public char nextClean() throws JSONException {
+		char c = next();
+		if(c == 0 || c > ' ') {
+			return c;
+		}
+		int p = pos;
+		while(p < limit) {
+			int b = buf[p];
+			if(b <= 0 || b > ' ') {
+				break;
+			}
+			p++;
+		}
+		pos = p;
+		return next();
+	}
+
+	@Override
+	public String nextString(char quote) throws JSONException {
+		int max = getLimits().maxStringLength();
+		int p = pos;
+		if(pending == 0) {
+			//fast path for strings made of plain ASCII characters only, up to the maximum length
+			while(p < limit && p - pos <= max) {
+				int b = buf[p];
+				if(b == quote) {
+					String result = new String(buf, pos, p - pos, StandardCharsets.ISO_8859_1);
+					consumed(p, p + 1);
+					return result;
+				}
+				if(b <= '\r' || b == '\\') {
+					break;
+				}
+				p++;
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(p - pos + 16);
+		for(int i=pos; i<p; i++) {
+			sb.append((char) buf[i]);
+		}
+		pos = p;
+		for(;;) {
+			checkStringLength(sb.length());
+			char c = next();
+			switch(c) {
+			case 0:
+			case '\n':
+			case '\r':
+				throw syntaxError("Unterminated string");
+			case '\\':
+				c = next();
+				switch(c) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 'u':
+					try {
+						sb.append((char) Integer.parseInt(next(4), 16));
+					}
+					catch(NumberFormatException exep) {
+						throw syntaxError("Illegal escape.", exep);
+					}
+					break;
+				case '"':
+				case '\'':
+				case '\\':
+				case '/':
+					sb.append(c);
+					break;
+				default:
+					throw syntaxError("Illegal escape.");
+				}
+				break;
+			default:
+				if(c == quote) {
+					return sb.toString();
+				}
+				sb.append(c);
+				//copy the following run of plain ASCII characters in one go
+				p = pos;
+				while(pending == 0 && p < limit && sb.length() <= max) {
+					int b = buf[p];
+					if(b <= '\r' || b == '\\' || b == quote) {
+						break;
+					}
+					sb.append((char) b);
+					p++;
+				}
+				if(p > pos) {
+					consumed(p - 1, p);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Numbers are converted straight from the input bytes; all other values are read as by
+	 * {@link JSONTokener#nextValue()}.
+	 */
+
+	@Override
+	public Object nextValue() throws JSONException {
+		if(tryNextLong()) {
+			return (longValue == (int) longValue) ? (Object) Integer.valueOf((int) longValue)
+					: (Object) Long.valueOf(longValue);
+		}
+		int p = valueStart();
+		int end = (p < 0) ? -1 : scanNumber(p);
+		if(end > 0 && end - p <= getLimits().maxNumberLength() && isDecimal(p, end)) {
+			//the other literals that fail tryNextLong() are kept as strings
+			double value = NumberParser.parseDouble(buf, p, end);
+			if(!Double.isInfinite(value)) {
+				consumed(end, end);
+				backed = true;
+				if(NumberParser.isFloatMidpoint(value)) {
+					//as JSONObject.stringToValue, the digits are kept for the nearest float
+					return new BigDecimal(new String(buf, p, end - p, StandardCharsets.ISO_8859_1));
+				}
+				return Double.valueOf(value);
+			}
+		}
+		return super.nextValue();
+	}
+
+	/**
+	 * A key in double quotes made of plain ASCII characters is matched against the
+	 * {@link KeyTable} straight from the input bytes, without building a string when the key is
+	 * already there.
+	 */
+
+	@Override
+	public String nextKey() throws JSONException {
+		int p = valueStart();
+		if(p >= 0 && buf[p] == '"') {
+			int hash = 0;
+			for(int q=p + 1; q<limit; q++) {
+				int b = buf[q];
+				if(b == '"') {
+					if(q - p - 1 > getLimits().maxStringLength()) {
+						break;
+					}
+					String key = KeyTable.canonical(buf, p + 1, q - p - 1, hash);
+					consumed(q, q + 1);
+					return key;
+				}
+				if(b <= '\r' || b == '\\') {
+					break;
+				}
+				hash = 31 * hash + b;
+			}
+		}
+		return super.nextKey();
+	}
+
+	@Override
+	public boolean tryNextLong() throws JSONException {
+		int p = valueStart();
+		if(p < 0) {
+			return false;
+		}
+		int valuePos = p;
+		boolean negative = buf[p] == '-';
+		if(negative) {
+			p++;
+		}
+		int first = p;
+		//accumulate negatively, so that Long.MIN_VALUE is in range
+		long value = 0;
+		while(p < limit) {
+			int d = buf[p] - '0';
+			if(d < 0 || d > 9) {
+				break;
+			}
+			if(value < (Long.MIN_VALUE + d) / 10) {
+				return false;
+			}
+			value = value * 10 - d;
+			p++;
+		}
+		int digits = p - first;
+		if(digits == 0 || (buf[first] == '0' && digits > 1) || (negative && value == 0)
+				|| !endsValue(p)) {
+			return false;
+		}
+		if(!negative) {
+			if(value == Long.MIN_VALUE) {
+				return false;
+			}
+			value = -value;
+		}
+		if(p - valuePos > getLimits().maxNumberLength()) {
+			return false;
+		}
+		longValue = value;
+		//leave the tokener as nextValue() does, after stepping back from the delimiter
+		consumed(p, p);
+		backed = true;
+		return true;
+	}
+
+	@Override
+	public long longValue() {
+		return longValue;
+	}
+
+	@Override
+	public boolean tryNextDouble() throws JSONException {
+		int p = valueStart();
+		int end = (p < 0) ? -1 : scanNumber(p);
+		if(end < 0 || end - p > getLimits().maxNumberLength()) {
+			return false;
+		}
+		numberStart = p;
+		numberEnd = end;
+		consumed(end, end);
+		backed = true;
+		return true;
+	}
+
+	@Override
+	public double doubleValue() {
+		return NumberParser.parseDouble(buf, numberStart, numberEnd);
+	}
+
+	@Override
+	public float floatValue() {
+		return NumberParser.parseFloat(buf, numberStart, numberEnd);
+	}
+
+	@Override
+	public char skipTo(char to) throws JSONException {
+		int savedPos = pos;
+		char savedPending = pending;
+		int savedMark = markPos;
+		char savedMarkPending = markPending;
+		boolean savedBacked = backed;
+		int savedEofReads = eofReads;
+		boolean savedCrAgain = crAgain;
+		int savedExtraLines = extraLines;
+		char c;
+		do {
+			c = next();
+			if(c == 0) {
+				pos = savedPos;
+				pending = savedPending;
+				markPos = savedMark;
+				markPending = savedMarkPending;
+				backed = savedBacked;
+				eofReads = savedEofReads;
+				crAgain = savedCrAgain;
+				extraLines = savedExtraLines;
+				return c;
+			}
+		}
+		while(c != to);
+		back();
+		return c;
+	}
+
+	/**
+	 * The position is that of {@link JSONTokener} after the same calls. A step back there undoes
+	 * the index and column of the last character read but not a line it started; the character is
+	 * rescanned as well in that case.
+	 */
+
+	@Override
+	public String toString() {
+		long index = 0;
+		long character = 1;
+		long line = 1;
+		char previous = 0;
+
+		boolean stepped = backed && (pending != 0 || pos < limit);
+		int p = start;
+		while(p < pos || (stepped && pending == 0 && p == pos)) {
+			int from = p;
+			int b = buf[p];
+			int cp;
+			if(b >= 0) {
+				cp = b;
+				p++;
+			}
+			else {
+				long seq = decode(p);
+				cp = codePoint(seq);
+				p += length(seq);
+			}
+			char[] chars = Character.toChars(cp);
+			int units = chars.length;
+			if(from == pos || (p == pos && pending != 0 && !backed)) {
+				//only the high surrogate has been read if the low one is still pending
+				units = 1;
+			}
+			for(int i=0; i<units; i++) {
+				char c = chars[i];
+				index++;
+				if(previous == '\r') {
+					line++;
+					character = (c == '\n') ? 0 : 1;
+				}
+				else if(c == '\n') {
+					line++;
+					character = 0;
+				}
+				else {
+					character++;
+				}
+				previous = c;
+			}
+		}
+		if(crAgain) {
+			//a carriage return read again starts a line of its own
+			character = 1;
+		}
+		if(stepped) {
+			index--;
+			character--;
+		}
+		if(eofReads > 0 || (backed && pending == 0 && pos >= limit)) {
+			//each read of the end of input counts as a character
+			index += eofReads;
+			if(previous == '\r') {
+				line++;
+				character = eofReads;
+			}
+			else {
+				character += eofReads;
+			}
+		}
+		line += extraLines;
+		return " at " + index + " [character " + character + " line " + line + "]";
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	@Override
+	protected void skipString(char quote) throws JSONException {
+		int from = pos;
+		for(;;) {
+			int p = pos;
+			while(pending == 0 && p < limit) {
+				int b = buf[p];
+				//bytes of multi-byte sequences never match the characters checked for here
+				if(b == quote || b == '\\' || b == '\n' || b == '\r' || b == 0) {
+					break;
+				}
+				p++;
+			}
+			//a string never has more characters than bytes, count them only if it may be too long
+			if(p - from > getLimits().maxStringLength()
+					&& decodedLength(from, p) > getLimits().maxStringLength()) {
+				//read it again one character at a time, to fail where JSONTokener does
+				pos = from;
+				super.skipString(quote);
+				return;
+			}
+			pos = p;
+			char c = next();
+			if(c == quote) {
+				return;
+			}
+			if(c != '\\') {
+				throw syntaxError("Unterminated string");
+			}
+			c = next();
+			switch(c) {
+			case 'b':
+			case 't':
+			case 'n':
+			case 'f':
+			case 'r':
+			case '"':
+			case '\'':
+			case '\\':
+			case '/':
+				break;
+			case 'u':
+				try {
+					Integer.parseInt(next(4), 16);
+				}
+				catch(NumberFormatException exep) {
+					throw syntaxError("Illegal escape.", exep);
+				}
+				break;
+			default:
+				throw syntaxError("Illegal escape.");
+			}
+		}
+	}
+
+	/**
+	 * A line break that is read again after a step back is counted a second time by
+	 * {@link JSONTokener}; the same is done here, so that both report the same positions.
+	 */
+
+	private void reread() {
+		if(backed) {
+			backed = false;
+			if(pending == 0 && pos < limit && (buf[pos] == '\n' || buf[pos] == '\r')) {
+				extraLines++;
+			}
+		}
+	}
+
+	private void consumed(int lastPos, int newPos) {
+		markPos = lastPos;
+		markPending = 0;
+		backed = false;
+		crAgain = false;
+		pos = newPos;
+	}
+
+	/**
+	 * Skips whitespace and returns the offset of the next value, or -1 if there is none or it
+	 * does not start on a byte boundary.
+	 */
+
+	private int valueStart() throws JSONException {
+		nextClean();
+		back();
+		return (pending != 0 || pos >= limit) ? -1 : pos;
+	}
+
+	/**
+	 * Matches a number literal, <code>-?digits(.digits*)?([eE][+-]?digits)?</code>, at the given
+	 * offset.
+	 *
+	 * @return the offset past the literal, or -1 if there is no such literal.
+	 */
+
+	private int scanNumber(int p) {
+		if(buf[p] == '-') {
+			p++;
+		}
+		int first = p;
+		while(p < limit && buf[p] >= '0' && buf[p] <= '9') {
+			p++;
+		}
+		if(p == first) {
+			return -1;
+		}
+		if(p < limit && buf[p] == '.') {
+			p++;
+			while(p < limit && buf[p] >= '0' && buf[p] <= '9') {
+				p++;
+			}
+		}
+		if(p < limit && (buf[p] == 'e' || buf[p] == 'E')) {
+			p++;
+			if(p < limit && (buf[p] == '-' || buf[p] == '+')) {
+				p++;
+			}
+			first = p;
+			while(p < limit && buf[p] >= '0' && buf[p] <= '9') {
+				p++;
+			}
+			if(p == first) {
+				return -1;
+			}
+		}
+		return endsValue(p) ? p : -1;
+	}
+
+	/**
+	 * Tells whether a literal ending at the given offset ends where {@link JSONTokener#nextValue()}
+	 * ends it, with nothing to trim.
+	 */
+
+	private boolean endsValue(int p) {
+		if(p >= limit) {
+			return true;
+		}
+		int b = buf[p] & 0xFF;
+		return b < ' ' || ",:]}/\\\"[{;=#".indexOf(b) >= 0;
+	}
+
+	/**
+	 * Tells whether {@link JSONObject#stringToValue(String)} reads the literal as a double.
+	 */
+
+	private boolean isDecimal(int p, int end) {
+		if(end - p == 2 && buf[p] == '-' && buf[p + 1] == '0') {
+			return true;
+		}
+		for(int i=p; i<end; i++) {
+			if(buf[i] == '.' || buf[i] == 'e' || buf[i] == 'E') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the characters of the contents of a well-formed string, between the given offsets.
+	 */
+
+	private int decodedLength(int from, int to) {
+		int count = 0;
+		int p = from;
+		while(p < to) {
+			int b = buf[p];
+			if(b == '\\') {
+				p += (buf[p + 1] == 'u') ? 6 : 2;
+				count++;
+			}
+			else if(b >= 0) {
+				p++;
+				count++;
+			}
+			else {
+				long seq = decode(p);
+				p += length(seq);
+				count += (codePoint(seq) >= Character.MIN_SUPPLEMENTARY_CODE_POINT) ? 2 : 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Decodes the UTF-8 sequence starting at the given offset.
+	 *
+	 * @return the length of the sequence in the upper half and the code point in the lower half.
+	 */
+
+	private long decode(int p) {
+		int b0 = buf[p] & 0xFF;
+		int len;
+		int cp;
+		int min;
+		if(b0 >= 0xC2 && b0 <= 0xDF) {
+			len = 2;
+			cp = b0 & 0x1F;
+			min = 0x80;
+		}
+		else if(b0 >= 0xE0 && b0 <= 0xEF) {
+			len = 3;
+			cp = b0 & 0x0F;
+			min = 0x800;
+		}
+		else if(b0 >= 0xF0 && b0 <= 0xF4) {
+			len = 4;
+			cp = b0 & 0x07;
+			min = 0x10000;
+		}
+		else {
+			return pack(1, 0xFFFD);
+		}
+		for(int i=1; i<len; i++) {
+			if(p + i >= limit || (buf[p + i] & 0xC0) != 0x80) {
+				return pack(i, 0xFFFD);
+			}
+			cp = (cp << 6) | (buf[p + i] & 0x3F);
+		}
+		if(cp < min || cp > Character.MAX_CODE_POINT
+				|| (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+			return pack(len, 0xFFFD);
+		}
+		return pack(len, cp);
+	}
+
+	private static long pack(int length, int codePoint) {
+		return ((long) length << 32) | codePoint;
+	}
+
+	private static int length(long seq) {
+		return (int) (seq >>> 32);
+	}
+
+	private static int codePoint(long seq) {
+		return (int) seq;
+	}
+
+	private static byte[] arrayOf(ByteBuffer data) {
+		if(data.hasArray()) {
+			return data.array();
+		}
+		byte[] copy = new byte[data.remaining()];
+		data.duplicate().get(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes compact JSON text as UTF-8 bytes, without going through a <code>Writer</code> or an
+ * intermediate <code>String</code>. Values are rendered exactly as
+ * {@link JSONObject#toString()} renders them. The writer does not track the structure of the
+ * document; callers emit the separators themselves.
+ * <p>
+ * Bytes are collected in a buffer that is drained to the target when full: an
+ * <code>OutputStream</code>, a <code>ByteBuffer</code> or, when the writer is created without a
+ * target, a growing array. A writer over a caller-provided array writes into that array and fails
+ * with a <code>BufferOverflowException</code> when it runs out of room.
+ * <p>
+ * I/O errors are reported as a {@link JSONException}, as with {@link JSONObject#write(java.io.Writer)}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class JSONByteWriter {
+
+	private static final int    DEFAULT_BUFFER_SIZE = 8192;
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+	private final OutputStream out;
+	private final ByteBuffer   target;
+	private final int          start;
+	private byte[]             buf;
+	private int                pos;
+	private int                limit;
+	private long               written;
+	private boolean            growable;
+	private boolean            scriptSafe = true;
+	private final byte[]       scratch = new byte[NumberWriter.MAX_LENGTH];
+
+	/**
+	 * Creates a writer that collects the JSON text in memory; see {@link #toByteArray()}.
+	 */
+
+	public JSONByteWriter() {
+		this(null, null, new byte[256], 0, 256);
+		growable = true;
+	}
+
+	public JSONByteWriter(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	public JSONByteWriter(OutputStream out, int bufferSize) {
+		this(out, null, new byte[bufferSize], 0, bufferSize);
+		if(out == null) {
+			throw new NullPointerException("out");
+		}
+	}
+
+	/**
+	 * Writes into the remaining space of the buffer. The position of the buffer is advanced by
+	 * {@link #flush()}.
+	 *
+	 * @param target the buffer to write to.
+	 */
+
+	public JSONByteWriter(ByteBuffer target) {
+		this(null, target, target.hasArray() ? target.array() : new byte[DEFAULT_BUFFER_SIZE],
+				target.hasArray() ? target.arrayOffset() + target.position() : 0,
+				target.hasArray() ? target.arrayOffset() + target.limit() : DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Writes into a caller-provided array, starting at the given offset.
+	 *
+	 * @param dest the array to write to.
+	 * @param offset the index of the first byte to write.
+	 */
+
+	public JSONByteWriter(byte[] dest, int offset) {
+		this(null, null, dest, offset, dest.length);
+		if(offset < 0 || offset > dest.length) {
+			throw new IndexOutOfBoundsException("offset " + offset);
+		}
+	}
+
+	private JSONByteWriter(OutputStream out, ByteBuffer target, byte[] buf, int start, int limit) {
+		this.out = out;
+		this.target = target;
+		this.buf = buf;
+		this.start = start;
+		this.pos = start;
+		this.limit = limit;
+	}
+
+	/**
+	 * Encodes a member name, with its quotes and the trailing colon, so that it can be written
+	 * repeatedly with {@link #writeRaw(byte[])}.
+	 *
+	 * @param name the member name.
+	 * @return the encoded name.
+	 */
+
+	public static byte[] encodeName(String name) {
+		JSONByteWriter w = new JSONByteWriter();
+		w.writeString(name);
+		w.writeByte(':');
+		return w.toByteArray();
+	}
+
+	/**
+	 * @return the number of bytes written since the writer was created.
+	 */
+
+	public long size() {
+		return written + (pos - start);
+	}
+
+	public JSONByteWriter writeByte(int b) {
+		if(pos == limit) {
+			drain();
+		}
+		buf[pos++] = (byte) b;
+		return this;
+	}
+
+	public JSONByteWriter writeRaw(byte[] bytes) {
+		return writeRaw(bytes, 0, bytes.length);
+	}
+
+	public JSONByteWriter writeRaw(byte[] bytes, int offset, int length) {
+		while(length > 0) {
+			if(pos == limit) {
+				drain();
+			}
+			int count = Math.min(length, limit - pos);
+			System.arraycopy(bytes, offset, buf, pos, count);
+			pos += count;
+			offset += count;
+			length -= count;
+		}
+		return this;
+	}
+
+	public JSONByteWriter writeNull() {
+		return writeRaw(NULL);
+	}
+
+	public JSONByteWriter writeBoolean(boolean value) {
+		return writeRaw(value ? TRUE : FALSE);
+	}
+
+	public JSONByteWriter writeLong(long value) {
+		if(limit - pos < NumberWriter.MAX_LENGTH) {
+			return writeRaw(scratch, 0, NumberWriter.writeLong(value, scratch, 0));
+		}
+		pos = NumberWriter.writeLong(value, buf, pos);
+		return this;
+	}
+
+	/**
+	 * Writes a double as the shortest decimal that reads back as the same value, laid out as
+	 * {@link JSONObject#numberToString(Number)} renders it.
+	 *
+	 * @param value the number.
+	 * @return this writer.
+	 * @throws JSONException if the number is not finite.
+	 */
+
+	public JSONByteWriter writeDouble(double value) {
+		if(Double.isInfinite(value) || Double.isNaN(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		if(limit - pos < NumberWriter.MAX_LENGTH) {
+			return writeRaw(scratch, 0, NumberWriter.writeDouble(value, scratch, 0));
+		}
+		pos = NumberWriter.writeDouble(value, buf, pos);
+		return this;
+	}
+
+	/**
+	 * Writes a float as the shortest decimal that reads back as the same float.
+	 *
+	 * @param value the number.
+	 * @return this writer.
+	 * @throws JSONException if the number is not finite.
+	 */
+
+	public JSONByteWriter writeFloat(float value) {
+		if(Float.isInfinite(value) || Float.isNaN(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		if(limit - pos < NumberWriter.MAX_LENGTH) {
+			return writeRaw(scratch, 0, NumberWriter.writeFloat(value, scratch, 0));
+		}
+		pos = NumberWriter.writeFloat(value, buf, pos);
+		return this;
+	}
+
+	public JSONByteWriter writeNumber(Number value) {
+		if(value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			return writeLong(value.longValue());
+		}
+		if(value instanceof Double) {
+			return writeDouble(value.doubleValue());
+		}
+		if(value instanceof Float) {
+			return writeFloat(value.floatValue());
+		}
+		String string = JSONObject.numberToString(value);
+		if(!JSONObject.isJSONNumber(value)) {
+			try {
+				new BigDecimal(string);
+			}
+			catch(NumberFormatException exep) {
+				return writeString(string);
+			}
+		}
+		return writeAscii(string);
+	}
+
+	/**
+	 * Writes a quoted string, escaped as {@link JSONObject#quote(String, java.io.Writer, boolean)}
+	 * escapes it. Characters that need no escaping are encoded straight into the buffer, and
+	 * only escapes, surrogate pairs and buffer boundaries go through the slower path.
+	 *
+	 * @param string the string, may be <code>null</code>.
+	 * @return this writer.
+	 */
+
+	public JSONByteWriter writeString(String string) {
+		writeByte('"');
+		int len = (string != null) ? string.length() : 0;
+		int i = 0;
+		while(i < len) {
+			byte[] dest = buf;
+			int p = pos;
+			int lim = limit;
+			while(i < len) {
+				char c = string.charAt(i);
+				if(c < 0x80) {
+					if(p == lim || JSONObject.ESCAPES[c] != 0) {
+						break;
+					}
+					dest[p++] = (byte) c;
+				}
+				else if(c < 0x800) {
+					if(lim - p < 2 || (scriptSafe && c < 0xa0)) {
+						break;
+					}
+					dest[p++] = (byte) (0xc0 | (c >> 6));
+					dest[p++] = (byte) (0x80 | (c & 0x3f));
+				}
+				else {
+					if(lim - p < 3 || Character.isSurrogate(c)
+							|| (scriptSafe && JSONObject.isScriptUnsafe(c))) {
+						break;
+					}
+					dest[p++] = (byte) (0xe0 | (c >> 12));
+					dest[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					dest[p++] = (byte) (0x80 | (c & 0x3f));
+				}
+				i++;
+			}
+			pos = p;
+			if(i < len) {
+				i = writeSpecial(string, i, len) + 1;
+			}
+		}
+		return writeByte('"');
+	}
+
+	/**
+	 * @param enabled whether strings are quoted script-safe; see
+	 * {@link JSONObject#quote(String, java.io.Writer, boolean)}. Enabled by default.
+	 * @return this writer.
+	 */
+
+	public JSONByteWriter scriptSafe(boolean enabled) {
+		scriptSafe = enabled;
+		return this;
+	}
+
+	/**
+	 * Writes text verbatim, encoded as UTF-8.
+	 *
+	 * @param text the text.
+	 * @return this writer.
+	 */
+
+	public JSONByteWriter writeText(String text) {
+		int len = text.length();
+		for(int i=0; i<len; i++) {
+			char c = text.charAt(i);
+			if(c < 0x80) {
+				writeByte(c);
+			}
+			else {
+				i = writeUtf8(text, i, len);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes any value that may be held by a {@link JSONObject} or {@link JSONArray}, as
+	 * {@link JSONObject#toString()} renders it.
+	 *
+	 * @param value the value.
+	 * @return this writer.
+	 * @throws JSONException if the value holds a non-finite number.
+	 */
+
+	public JSONByteWriter writeValue(Object value) {
+		if(value == null || value.equals(null)) {
+			return writeNull();
+		}
+		if(value instanceof String) {
+			return writeString((String) value);
+		}
+		if(value instanceof JSONString) {
+			Object o;
+			try {
+				o = ((JSONString) value).toJSONString();
+			}
+			catch(Exception exep) {
+				throw new JSONException(exep);
+			}
+			return (o != null) ? writeText(o.toString()) : writeString(value.toString());
+		}
+		if(value instanceof Number) {
+			return writeNumber((Number) value);
+		}
+		if(value instanceof Boolean) {
+			return writeBoolean((Boolean) value);
+		}
+		if(value instanceof Enum<?>) {
+			return writeString(((Enum<?>) value).name());
+		}
+		if(value instanceof JSONObject) {
+			JSONObject json = (JSONObject) value;
+			writeByte('{');
+			boolean first = true;
+			for(String key : json.keySet()) {
+				if(!first) {
+					writeByte(',');
+				}
+				writeString(key);
+				writeByte(':');
+				writeValue(json.opt(key));
+				first = false;
+			}
+			return writeByte('}');
+		}
+		if(value instanceof JSONArray) {
+			JSONArray json = (JSONArray) value;
+			writeByte('[');
+			int len = json.length();
+			for(int i=0; i<len; i++) {
+				if(i > 0) {
+					writeByte(',');
+				}
+				writeValue(json.opt(i));
+			}
+			return writeByte(']');
+		}
+		if(value instanceof Map) {
+			return writeValue(new JSONObject((Map<?, ?>) value));
+		}
+		if(value instanceof Collection) {
+			return writeValue(new JSONArray((Collection<?>) value));
+		}
+		if(value.getClass().isArray()) {
+			return writeValue(new JSONArray(value));
+		}
+		return writeString(value.toString());
+	}
+
+	/**
+	 * Drains the buffered bytes to the target: writes them to the output stream, or advances the
+	 * position of the byte buffer. The output stream itself is not flushed.
+	 */
+
+	public void flush() {
+		if(target != null && target.hasArray()) {
+			target.position(pos - target.arrayOffset());
+		}
+		else if(out != null || target != null) {
+			drain();
+		}
+	}
+
+	/**
+	 * @return the bytes written by a writer created without a target.
+	 */
+
+	public byte[] toByteArray() {
+		if(!growable) {
+			throw new IllegalStateException("writer has a target");
+		}
+		return Arrays.copyOf(buf, pos);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private JSONByteWriter writeAscii(String string) {
+		int len = string.length();
+		if(limit - pos < len) {
+			for(int i=0; i<len; i++) {
+				writeByte(string.charAt(i));
+			}
+			return this;
+		}
+		for(int i=0; i<len; i++) {
+			buf[pos++] = (byte) string.charAt(i);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the character at the given index, one byte at a time.
+	 *
+	 * @return the index of the last character consumed.
+	 */
+
+	private int writeSpecial(String string, int index, int len) {
+		char c = string.charAt(index);
+		char esc;
+		if(c < 128) {
+			esc = JSONObject.ESCAPES[c];
+			if(esc == 0 || (c == '/'
+					&& (!scriptSafe || index == 0 || string.charAt(index - 1) != '<'))) {
+				writeByte(c);
+				return index;
+			}
+		}
+		else if(scriptSafe && JSONObject.isScriptUnsafe(c)) {
+			esc = 'u';
+		}
+		else {
+			return writeUtf8(string, index, len);
+		}
+		writeByte('\\');
+		if(esc == 'u') {
+			writeByte('u');
+			writeByte(HEX[c >> 12]);
+			writeByte(HEX[(c >> 8) & 0xf]);
+			writeByte(HEX[(c >> 4) & 0xf]);
+			writeByte(HEX[c & 0xf]);
+		}
+		else {
+			writeByte(esc);
+		}
+		return index;
+	}
+
+	/**
+	 * Writes the non-ASCII character at the given index, combining it with the next character if
+	 * the two form a surrogate pair. A lone surrogate is written as <code>'?'</code>, as
+	 * <code>String.getBytes</code> does.
+	 *
+	 * @return the index of the last character consumed.
+	 */
+
+	private int writeUtf8(String string, int index, int len) {
+		char c = string.charAt(index);
+		if(c < 0x800) {
+			writeByte(0xc0 | (c >> 6));
+			writeByte(0x80 | (c & 0x3f));
+		}
+		else if(!Character.isSurrogate(c)) {
+			writeByte(0xe0 | (c >> 12));
+			writeByte(0x80 | ((c >> 6) & 0x3f));
+			writeByte(0x80 | (c & 0x3f));
+		}
+		else if(Character.isHighSurrogate(c) && index + 1 < len
+				&& Character.isLowSurrogate(string.charAt(index + 1))) {
+			int cp = Character.toCodePoint(c, string.charAt(++index));
+			writeByte(0xf0 | (cp >> 18));
+			writeByte(0x80 | ((cp >> 12) & 0x3f));
+			writeByte(0x80 | ((cp >> 6) & 0x3f));
+			writeByte(0x80 | (cp & 0x3f));
+		}
+		else {
+			writeByte('?');
+		}
+		return index;
+	}
+
+	private void drain() {
+		int count = pos - start;
+		if(out != null) {
+			try {
+				out.write(buf, start, count);
+			}
+			catch(IOException exep) {
+				throw new JSONException(exep);
+			}
+		}
+		else if(target != null && !target.hasArray()) {
+			target.put(buf, start, count);
+		}
+		else if(growable) {
+			buf = Arrays.copyOf(buf, buf.length * 2);
+			limit = buf.length;
+			return;
+		}
+		else {
+			throw new BufferOverflowException();
+		}
+		written += count;
+		pos = start;
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+/**
+ * Thrown when a JSON document exceeds one of the configured {@link JSONLimits}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class JSONLimitException extends JSONException {
+
+	private static final long serialVersionUID = 0;
+
+	private final long limit;
+
+	public JSONLimitException(String message, long limit) {
+		super(message);
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the value of the limit that was exceeded.
+	 */
+
+	public long getLimit() {
+		return limit;
+	}
+}
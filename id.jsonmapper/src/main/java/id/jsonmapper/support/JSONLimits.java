@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+/**
+ * Upper bounds applied while reading a JSON document. Instances are immutable; each
+ * <code>with</code> method returns a copy with one bound changed. A document that exceeds a bound
+ * is rejected with a {@link JSONLimitException}.
+ * <p>
+ * The bounds are checked by the tokeners and the streaming decoders as the document is read, with
+ * running counts, so a document is rejected as soon as it goes past one of them. Values that are
+ * skipped are held to the same bounds as values that are read.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class JSONLimits {
+
+	/**
+	 * The maximum depth of the {@link #DEFAULT} limits.
+	 */
+
+	public static final int DEFAULT_MAX_DEPTH = 512;
+
+	/**
+	 * The maximum length of a number in the {@link #DEFAULT} limits.
+	 */
+
+	public static final int DEFAULT_MAX_NUMBER_LENGTH = 1000;
+
+	/**
+	 * No bounds other than those imposed by the platform.
+	 */
+
+	public static final JSONLimits NONE = new JSONLimits(Long.MAX_VALUE, Integer.MAX_VALUE,
+			Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+	/**
+	 * The bounds applied by the mapper and the decoders unless others are given: a maximum depth
+	 * of {@value #DEFAULT_MAX_DEPTH} and a maximum number length of
+	 * {@value #DEFAULT_MAX_NUMBER_LENGTH}, with no bound on the size, strings or entries.
+	 * Documents are parsed without recursion at any depth, but objects are bound to their classes
+	 * recursively; the default depth keeps a document well within the thread stack. Numbers far
+	 * longer than any <code>double</code> needs are rejected before they reach the quadratic
+	 * parsing of <code>BigInteger</code> and <code>BigDecimal</code>.
+	 */
+
+	public static final JSONLimits DEFAULT = NONE.withMaxDepth(DEFAULT_MAX_DEPTH)
+			.withMaxNumberLength(DEFAULT_MAX_NUMBER_LENGTH);
+
+	private final long maxDocumentSize;
+	private final int  maxDepth;
+	private final int  maxStringLength;
+	private final int  maxNumberLength;
+	private final int  maxEntries;
+
+	private JSONLimits(long maxDocumentSize, int maxDepth, int maxStringLength,
+			int maxNumberLength, int maxEntries) {
+		this.maxDocumentSize = maxDocumentSize;
+		this.maxDepth = maxDepth;
+		this.maxStringLength = maxStringLength;
+		this.maxNumberLength = maxNumberLength;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return the maximum size of a document, in bytes. Text read from a <code>Reader</code> is
+	 * measured in characters.
+	 */
+
+	public long maxDocumentSize() {
+		return maxDocumentSize;
+	}
+
+	/**
+	 * @param bytes the maximum size of a document, in bytes.
+	 * @return a copy of these limits with the given maximum document size.
+	 */
+
+	public JSONLimits withMaxDocumentSize(long bytes) {
+		if(bytes <= 0) {
+			throw new IllegalArgumentException("maximum document size must be positive: " + bytes);
+		}
+		return new JSONLimits(bytes, maxDepth, maxStringLength, maxNumberLength, maxEntries);
+	}
+
+	/**
+	 * @return the maximum number of objects and arrays nested in one another, the outermost one
+	 * included.
+	 */
+
+	public int maxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @param depth the maximum number of objects and arrays nested in one another, the outermost
+	 * one included.
+	 * @return a copy of these limits with the given maximum depth.
+	 */
+
+	public JSONLimits withMaxDepth(int depth) {
+		if(depth <= 0) {
+			throw new IllegalArgumentException("maximum depth must be positive: " + depth);
+		}
+		return new JSONLimits(maxDocumentSize, depth, maxStringLength, maxNumberLength, maxEntries);
+	}
+
+	/**
+	 * @return the maximum number of characters of a string or a key, once escape sequences are
+	 * decoded.
+	 */
+
+	public int maxStringLength() {
+		return maxStringLength;
+	}
+
+	/**
+	 * @param length the maximum number of characters of a string or a key.
+	 * @return a copy of these limits with the given maximum string length.
+	 */
+
+	public JSONLimits withMaxStringLength(int length) {
+		if(length < 0) {
+			throw new IllegalArgumentException("maximum string length must not be negative: "
+					+ length);
+		}
+		return new JSONLimits(maxDocumentSize, maxDepth, length, maxNumberLength, maxEntries);
+	}
+
+	/**
+	 * @return the maximum number of characters of a number, or of any other value written
+	 * without quotes.
+	 */
+
+	public int maxNumberLength() {
+		return maxNumberLength;
+	}
+
+	/**
+	 * @param length the maximum number of characters of a number.
+	 * @return a copy of these limits with the given maximum number length.
+	 */
+
+	public JSONLimits withMaxNumberLength(int length) {
+		if(length <= 0) {
+			throw new IllegalArgumentException("maximum number length must be positive: " + length);
+		}
+		return new JSONLimits(maxDocumentSize, maxDepth, maxStringLength, length, maxEntries);
+	}
+
+	/**
+	 * @return the maximum number of members of a single object, or elements of a single array.
+	 */
+
+	public int maxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @param count the maximum number of members of an object, or elements of an array.
+	 * @return a copy of these limits with the given maximum number of entries.
+	 */
+
+	public JSONLimits withMaxEntries(int count) {
+		if(count < 0) {
+			throw new IllegalArgumentException("maximum number of entries must not be negative: "
+					+ count);
+		}
+		return new JSONLimits(maxDocumentSize, maxDepth, maxStringLength, maxNumberLength, count);
+	}
+
+	/**
+	 * @param size the number of bytes of a document read so far.
+	 * @throws JSONLimitException if the size exceeds the maximum document size.
+	 */
+
+	public void checkDocumentSize(long size) throws JSONLimitException {
+		if(size > maxDocumentSize) {
+			throw new JSONLimitException("document exceeds the maximum size of "
+					+ maxDocumentSize + " bytes", maxDocumentSize);
+		}
+	}
+}
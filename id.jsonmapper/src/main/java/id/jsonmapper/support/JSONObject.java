@@ -139,7 +139,8 @@ public class JSONObject {
 	}
 
 	/**
-	 * The map where the JSONObject's properties are kept.
+	 * The map where the JSONObject's properties are kept, in the order they
+	 * were first put.
 	 */
 	private final Map<String, Object> map;
 
@@ -155,7 +156,7 @@ public class JSONObject {
 	 * Construct an empty JSONObject.
 	 */
 	public JSONObject() {
-		this.map = new HashMap<String, Object>();
+		this.map = new CompactMap();
 	}
 
 	/**
@@ -185,52 +186,15 @@ public class JSONObject {
 	 *            A JSONTokener object containing the source string.
 	 * @throws JSONException
 	 *             If there is a syntax error in the source string or a
-	 *             duplicated key.
+	 *             duplicated key, or if the text nests objects and arrays
+	 *             deeper than the limits of the tokener allow.
 	 */
 	public JSONObject(JSONTokener x) throws JSONException {
 		this();
-		char c;
-		String key;
-
 		if (x.nextClean() != '{') {
 			throw x.syntaxError("A JSONObject text must begin with '{'");
 		}
-		for (;;) {
-			c = x.nextClean();
-			switch (c) {
-			case 0:
-				throw x.syntaxError("A JSONObject text must end with '}'");
-			case '}':
-				return;
-			default:
-				x.back();
-				key = x.nextValue().toString();
-			}
-
-// The key is followed by ':'.
-
-			c = x.nextClean();
-			if (c != ':') {
-				throw x.syntaxError("Expected a ':' after a key");
-			}
-			this.putOnce(key, x.nextValue());
-
-// Pairs are separated by ','.
-
-			switch (x.nextClean()) {
-			case ';':
-			case ',':
-				if (x.nextClean() == '}') {
-					return;
-				}
-				x.back();
-				break;
-			case '}':
-				return;
-			default:
-				throw x.syntaxError("Expected a ',' or '}'");
-			}
-		}
+		TreeParser.parse(x, this);
 	}
 
 	/**
@@ -241,7 +205,7 @@ public class JSONObject {
 	 *            the JSONObject.
 	 */
 	public JSONObject(Map<?, ?> map) {
-		this.map = new HashMap<String, Object>();
+		this.map = new CompactMap();
 		if (map != null) {
 			for (final Entry<?, ?> e : map.entrySet()) {
 				final Object value = e.getValue();
@@ -317,7 +281,7 @@ public class JSONObject {
 	 *                duplicated key.
 	 */
 	public JSONObject(String source) throws JSONException {
-		this(new JSONTokener(source));
+		this(new JSONStringTokener(source));
 	}
 
 	/**
@@ -428,7 +392,8 @@ public class JSONObject {
 
 	/**
 	 * Produce a string from a double. The string "null" will be returned if the
-	 * number is not finite.
+	 * number is not finite. Otherwise the string is the shortest decimal that
+	 * reads back as the same double.
 	 *
 	 * @param d
 	 *            A double.
@@ -438,20 +403,7 @@ public class JSONObject {
 		if (Double.isInfinite(d) || Double.isNaN(d)) {
 			return "null";
 		}
-
-// Shave off trailing zeros and decimal point, if possible.
-
-		String string = Double.toString(d);
-		if (string.indexOf('.') > 0 && string.indexOf('e') < 0
-				&& string.indexOf('E') < 0) {
-			while (string.endsWith("0")) {
-				string = string.substring(0, string.length() - 1);
-			}
-			if (string.endsWith(".")) {
-				string = string.substring(0, string.length() - 1);
-			}
-		}
-		return string;
+		return NumberWriter.toString(d);
 	}
 
 	/**
@@ -586,6 +538,28 @@ public class JSONObject {
 		}
 	}
 
+	/**
+	 * Get the float value associated with a key. A number is rounded to the
+	 * float nearest to its decimal text.
+	 *
+	 * @param key
+	 *            A key string.
+	 * @return The numeric value.
+	 * @throws JSONException
+	 *             if the key is not found or if the value is not a Number
+	 *             object and cannot be converted to a number.
+	 */
+	public float getFloat(String key) throws JSONException {
+		Object object = this.get(key);
+		try {
+			return object instanceof Number ? ((Number) object).floatValue()
+					: NumberParser.parseFloat((String) object);
+		} catch (Exception e) {
+			throw new JSONException("JSONObject[" + quote(key)
+					+ "] is not a number.");
+		}
+	}
+
 	/**
 	 * Get the int value associated with a key.
 	 *
@@ -841,6 +815,13 @@ public class JSONObject {
 		}
 		testValidity(number);
 
+		if (number instanceof Double) {
+			return NumberWriter.toString(number.doubleValue());
+		}
+		if (number instanceof Float) {
+			return NumberWriter.toString(number.floatValue());
+		}
+
 		// Shave off trailing zeros and decimal point, if possible.
 
 		String string = number.toString();
@@ -856,6 +837,22 @@ public class JSONObject {
 		return string;
 	}
 
+	/**
+	 * Tells whether the string produced by {@link #numberToString(Number)} for
+	 * a number is known to be a valid JSON number, without parsing it. This
+	 * holds for the number types of the JDK.
+	 *
+	 * @param number
+	 *            A Number
+	 * @return true if the number needs no validation.
+	 */
+	static boolean isJSONNumber(Number number) {
+		return number instanceof Integer || number instanceof Long
+				|| number instanceof Double || number instanceof Float
+				|| number instanceof Short || number instanceof Byte
+				|| number instanceof BigDecimal || number instanceof BigInteger;
+	}
+
 	/**
 	 * Get an optional value associated with a key.
 	 *
@@ -1315,10 +1312,10 @@ public class JSONObject {
 	 */
 	public JSONObject putOnce(String key, Object value) throws JSONException {
 		if (key != null && value != null) {
-			if (this.opt(key) != null) {
+			testValidity(value);
+			if (this.map.putIfAbsent(key, value) != null) {
 				throw new JSONException("Duplicate key \"" + key + "\"");
 			}
-			this.put(key, value);
 		}
 		return this;
 	}
@@ -1399,7 +1396,8 @@ public class JSONObject {
 	 * @return A String correctly formatted for insertion in a JSON text.
 	 */
 	public static String quote(String string) {
-		StringWriter sw = new StringWriter();
+		int len = string == null ? 0 : string.length();
+		StringWriter sw = new StringWriter(len + 16);
 		synchronized (sw.getBuffer()) {
 			try {
 				return quote(string, sw).toString();
@@ -1410,61 +1408,108 @@ public class JSONObject {
 		}
 	}
 
+	/**
+	 * Escapes for the characters below 128. A zero entry needs no escaping,
+	 * <code>'u'</code> is written as <code>&#92;u00XX</code> and any other entry
+	 * is written after a backslash. The entry for <code>'/'</code> applies only
+	 * after <code>'&lt;'</code> and only with script-safe quoting.
+	 */
+	static final char[] ESCAPES = new char[128];
+
+	static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	static {
+		for (int i = 0; i < ' '; i += 1) {
+			ESCAPES[i] = 'u';
+		}
+		ESCAPES['\b'] = 'b';
+		ESCAPES['\t'] = 't';
+		ESCAPES['\n'] = 'n';
+		ESCAPES['\f'] = 'f';
+		ESCAPES['\r'] = 'r';
+		ESCAPES['"'] = '"';
+		ESCAPES['\\'] = '\\';
+		ESCAPES['/'] = '/';
+	}
+
+	/**
+	 * Tells whether script-safe quoting escapes a character of 128 or above:
+	 * the C1 control characters and the block U+2000 to U+20FF, which holds
+	 * the line and paragraph separators U+2028 and U+2029.
+	 *
+	 * @param c
+	 *            A character of 128 or above.
+	 * @return true if the character is escaped.
+	 */
+	static boolean isScriptUnsafe(char c) {
+		return c < '\u00a0' || (c >= '\u2000' && c < '\u2100');
+	}
+
 	public static Writer quote(String string, Writer w) throws IOException {
+		return quote(string, w, true);
+	}
+
+	/**
+	 * Write a string in double quotes with backslash sequences in all the
+	 * right places. Runs of characters that need no escaping are written with
+	 * a single call to the writer.
+	 *
+	 * @param string
+	 *            A String
+	 * @param w
+	 *            The writer
+	 * @param scriptSafe
+	 *            Whether to also escape &lt;/ and the characters singled out
+	 *            by {@link #isScriptUnsafe(char)}, so that the text can be
+	 *            embedded in HTML and JavaScript. Otherwise only the escapes
+	 *            required by JSON are applied.
+	 * @return The writer.
+	 * @throws IOException
+	 *             If the writer fails.
+	 */
+	public static Writer quote(String string, Writer w, boolean scriptSafe)
+			throws IOException {
 		if (string == null || string.length() == 0) {
 			w.write("\"\"");
 			return w;
 		}
 
-		char b;
-		char c = 0;
-		String hhhh;
-		int i;
 		int len = string.length();
+		int run = 0;
 
 		w.write('"');
-		for (i = 0; i < len; i += 1) {
-			b = c;
-			c = string.charAt(i);
-			switch (c) {
-			case '\\':
-			case '"':
-				w.write('\\');
-				w.write(c);
-				break;
-			case '/':
-				if (b == '<') {
-					w.write('\\');
-				}
-				w.write(c);
-				break;
-			case '\b':
-				w.write("\\b");
-				break;
-			case '\t':
-				w.write("\\t");
-				break;
-			case '\n':
-				w.write("\\n");
-				break;
-			case '\f':
-				w.write("\\f");
-				break;
-			case '\r':
-				w.write("\\r");
-				break;
-			default:
-				if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
-						|| (c >= '\u2000' && c < '\u2100')) {
-					w.write("\\u");
-					hhhh = Integer.toHexString(c);
-					w.write("0000", 0, 4 - hhhh.length());
-					w.write(hhhh);
-				} else {
-					w.write(c);
+		for (int i = 0; i < len; i += 1) {
+			char c = string.charAt(i);
+			char esc;
+			if (c < 128) {
+				esc = ESCAPES[c];
+				if (esc == 0 || (c == '/' && (!scriptSafe || i == 0
+						|| string.charAt(i - 1) != '<'))) {
+					continue;
 				}
+			} else if (scriptSafe && isScriptUnsafe(c)) {
+				esc = 'u';
+			} else {
+				continue;
+			}
+			if (i > run) {
+				w.write(string, run, i - run);
+			}
+			run = i + 1;
+			w.write('\\');
+			if (esc == 'u') {
+				w.write('u');
+				w.write(HEX_DIGITS[c >> 12]);
+				w.write(HEX_DIGITS[(c >> 8) & 0xf]);
+				w.write(HEX_DIGITS[(c >> 4) & 0xf]);
+				w.write(HEX_DIGITS[c & 0xf]);
+			} else {
+				w.write(esc);
 			}
 		}
+		if (len > run) {
+			w.write(string, run, len - run);
+		}
 		w.write('"');
 		return w;
 	}
@@ -1554,16 +1599,21 @@ public class JSONObject {
 				if (string.indexOf('.') > -1 || string.indexOf('e') > -1
 						|| string.indexOf('E') > -1
 						|| "-0".equals(string)) {
-					Double d = Double.valueOf(string);
-					if (!d.isInfinite() && !d.isNaN()) {
-						return d;
+					double d = NumberParser.parseDouble(string);
+					if (!Double.isInfinite(d) && !Double.isNaN(d)) {
+						if (NumberParser.isFloatMidpoint(d)) {
+							// keep the digits, the nearest float cannot be
+							// told from the double
+							try {
+								return new BigDecimal(string);
+							} catch (NumberFormatException ignore) {
+							}
+						}
+						return Double.valueOf(d);
 					}
 				} else {
-					Long myLong = new Long(string);
-					if (string.equals(myLong.toString())) {
-						if (myLong.longValue() == myLong.intValue()) {
-							return Integer.valueOf(myLong.intValue());
-						}
+					Number myLong = integerValue(string);
+					if (myLong != null) {
 						return myLong;
 					}
 				}
@@ -1573,6 +1623,53 @@ public class JSONObject {
 		return string;
 	}
 
+	/**
+	 * Convert a string to an Integer or a Long, if it is written exactly as
+	 * Long.toString would write the value: an optional minus sign followed by
+	 * digits without leading zeros. The digits are accumulated directly,
+	 * without parsing the string a second time to check its form.
+	 *
+	 * @param string
+	 *            A non-empty String.
+	 * @return an Integer if the value fits in an int, a Long if it fits in a
+	 *         long, and null otherwise.
+	 */
+	static Number integerValue(String string) {
+		int length = string.length();
+		boolean negative = string.charAt(0) == '-';
+		int i = negative ? 1 : 0;
+		int digits = length - i;
+		if (digits == 0 || digits > 19
+				|| (string.charAt(i) == '0' && digits > 1)) {
+			return null;
+		}
+		// accumulate negatively, so that Long.MIN_VALUE is in range
+		long value = 0;
+		for (; i < length; i += 1) {
+			int d = string.charAt(i) - '0';
+			if (d < 0 || d > 9) {
+				return null;
+			}
+			if (value < (Long.MIN_VALUE + d) / 10) {
+				return null;
+			}
+			value = value * 10 - d;
+		}
+		if (!negative) {
+			if (value == Long.MIN_VALUE) {
+				return null;
+			}
+			value = -value;
+		} else if (value == 0) {
+			// "-0" is read as a double
+			return null;
+		}
+		if (value == (int) value) {
+			return Integer.valueOf((int) value);
+		}
+		return Long.valueOf(value);
+	}
+
 	/**
 	 * Throw an exception if the object is a NaN or infinite number.
 	 *
@@ -1704,6 +1801,9 @@ public class JSONObject {
 		if (value instanceof Number) {
 			// not all Numbers may match actual JSON Numbers. i.e. Fractions or Complex
 			final String numberAsString = numberToString((Number) value);
+			if (isJSONNumber((Number) value)) {
+				return numberAsString;
+			}
 			try {
 				// Use the BigDecimal constructor for it's parser to validate the format.
 				new BigDecimal(numberAsString);
@@ -1818,6 +1918,10 @@ public class JSONObject {
 		} else if (value instanceof Number) {
 			// not all Numbers may match actual JSON Numbers. i.e. fractions or Imaginary
 			final String numberAsString = numberToString((Number) value);
+			if (isJSONNumber((Number) value)) {
+				writer.write(numberAsString);
+				return writer;
+			}
 			try {
 				// Use the BigDecimal constructor for it's parser to validate the format.
 				@SuppressWarnings("unused")
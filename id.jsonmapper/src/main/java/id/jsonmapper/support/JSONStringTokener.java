@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+/**
+ * A {@link JSONTokener} that reads JSON text directly from a string, without going through a
+ * <code>Reader</code>.
+ * <p>
+ * Only the offset into the string is tracked while reading. The character index, line and column
+ * reported in syntax errors are computed when an error is raised, by rescanning the string up to
+ * the offset, and are the same as those reported by {@link JSONTokener#JSONTokener(String)}.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class JSONStringTokener extends JSONTokener {
+
+	private final String source;
+	private final int    limit;
+	private int          pos;
+	private int          markPos;
+	private boolean      backed;
+	private boolean      eof;
+	private int          eofReads;
+	private boolean      crAgain;
+	private int          extraLines;
+
+	public JSONStringTokener(String source) {
+		this.source = source;
+		limit = source.length();
+		markPos = -1;
+	}
+
+	/**
+	 * The length of the string is checked against the maximum document size right away.
+	 */
+
+	@Override
+	public void setLimits(JSONLimits limits) {
+		super.setLimits(limits);
+		limits.checkDocumentSize(limit);
+	}
+
+	@Override
+	public void back() throws JSONException {
+		if(backed || markPos < 0) {
+			throw new JSONException("Stepping back two steps is not supported");
+		}
+		if(markPos >= limit) {
+			eofReads--;
+		}
+		pos = markPos;
+		backed = true;
+		eof = false;
+	}
+
+	@Override
+	public boolean end() {
+		return eof;
+	}
+
+	@Override
+	public char next() throws JSONException {
+		boolean again = backed;
+		reread();
+		markPos = pos;
+		if(pos >= limit) {
+			eofReads++;
+			crAgain = false;
+			//a character read again after a step back does not set the end flag
+			eof |= !again;
+			return 0;
+		}
+		char c = source.charAt(pos++);
+		crAgain = again && c == '\r';
+		eof |= (c == 0 && !again);
+		return c;
+	}
+
+	@Override
+	public char nextClean() throws JSONException {
+		char c = next();
+		if(c == 0 || c > ' ') {
+			return c;
+		}
+		int p = pos;
+		while(p < limit) {
+			c = source.charAt(p);
+			if(c == 0 || c > ' ') {
+				break;
+			}
+			p++;
+		}
+		pos = p;
+		return next();
+	}
+
+	/**
+	 * A string without escapes is taken from the source in one go; any other string, or one that
+	 * is too long, is read as by {@link JSONTokener#nextString(char)}.
+	 */
+
+	@Override
+	public String nextString(char quote) throws JSONException {
+		int p = scanString(quote);
+		if(p < 0) {
+			return super.nextString(quote);
+		}
+		String result = source.substring(pos, p);
+		consumed(p, p + 1);
+		return result;
+	}
+
+	@Override
+	public char skipTo(char to) throws JSONException {
+		int savedPos = pos;
+		int savedMark = markPos;
+		boolean savedBacked = backed;
+		int savedEofReads = eofReads;
+		boolean savedCrAgain = crAgain;
+		int savedExtraLines = extraLines;
+		char c;
+		do {
+			c = next();
+			if(c == 0) {
+				pos = savedPos;
+				markPos = savedMark;
+				backed = savedBacked;
+				eofReads = savedEofReads;
+				crAgain = savedCrAgain;
+				extraLines = savedExtraLines;
+				return c;
+			}
+		}
+		while(c != to);
+		back();
+		return c;
+	}
+
+	/**
+	 * The position is that of {@link JSONTokener} after the same calls. A step back there undoes
+	 * the index and column of the last character read but not a line it started; the character is
+	 * rescanned as well in that case.
+	 */
+
+	@Override
+	public String toString() {
+		long index = 0;
+		long character = 1;
+		long line = 1;
+		char previous = 0;
+
+		int end = (backed && pos < limit) ? pos + 1 : pos;
+		for(int p=0; p<end; p++) {
+			char c = source.charAt(p);
+			index++;
+			if(previous == '\r') {
+				line++;
+				character = (c == '\n') ? 0 : 1;
+			}
+			else if(c == '\n') {
+				line++;
+				character = 0;
+			}
+			else {
+				character++;
+			}
+			previous = c;
+		}
+		if(crAgain) {
+			//a carriage return read again starts a line of its own
+			character = 1;
+		}
+		if(end > pos) {
+			index--;
+			character--;
+		}
+		if(eofReads > 0 || (backed && pos >= limit)) {
+			//each read of the end of input counts as a character
+			index += eofReads;
+			if(previous == '\r') {
+				line++;
+				character = eofReads;
+			}
+			else {
+				character += eofReads;
+			}
+		}
+		line += extraLines;
+		return " at " + index + " [character " + character + " line " + line + "]";
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	@Override
+	protected void skipString(char quote) throws JSONException {
+		int p = scanString(quote);
+		if(p < 0) {
+			super.skipString(quote);
+			return;
+		}
+		consumed(p, p + 1);
+	}
+
+	/**
+	 * Finds the closing quote of a string without escapes or line breaks that is within the
+	 * maximum string length. A character stepped back over is part of the string, and is never a
+	 * line break that would have to be counted again.
+	 *
+	 * @return the offset of the closing quote, or -1 if the string has to be read character by
+	 *         character.
+	 */
+
+	private int scanString(char quote) {
+		for(int p=pos; p<limit; p++) {
+			char c = source.charAt(p);
+			if(c == quote) {
+				return (p - pos > getLimits().maxStringLength()) ? -1 : p;
+			}
+			if(c <= '\r' || c == '\\') {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A line break that is read again after a step back is counted a second time by
+	 * {@link JSONTokener}; the same is done here, so that both report the same positions.
+	 */
+
+	private void reread() {
+		if(backed) {
+			backed = false;
+			if(pos < limit && (source.charAt(pos) == '\n' || source.charAt(pos) == '\r')) {
+				extraLines++;
+			}
+		}
+	}
+
+	private void consumed(int lastPos, int newPos) {
+		markPos = lastPos;
+		backed = false;
+		crAgain = false;
+		pos = newPos;
+	}
+}
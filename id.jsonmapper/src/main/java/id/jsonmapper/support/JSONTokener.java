@@ -41,13 +41,15 @@ import java.io.StringReader;
 
 public class JSONTokener {
 
-	private long    character;
-	private boolean eof;
-	private long    index;
-	private long    line;
-	private char    previous;
-	private Reader  reader;
-	private boolean usePrevious;
+	private long       character;
+	private int        depth;
+	private boolean    eof;
+	private long       index;
+	private JSONLimits limits;
+	private long       line;
+	private char       previous;
+	private Reader     reader;
+	private boolean    usePrevious;
 
 
 	/**
@@ -65,6 +67,7 @@ public class JSONTokener {
 		this.index = 0;
 		this.character = 1;
 		this.line = 1;
+		this.limits = JSONLimits.NONE;
 	}
 
 
@@ -78,7 +81,9 @@ public class JSONTokener {
 
 
 	/**
-	 * Construct a JSONTokener from a string.
+	 * Construct a JSONTokener from a string. A {@link JSONStringTokener}
+	 * reads the same string without going through a reader, and keeps track
+	 * of the position in the source only when an error is reported.
 	 *
 	 * @param s     A source string.
 	 */
@@ -87,6 +92,23 @@ public class JSONTokener {
 	}
 
 
+	/**
+	 * Construct a JSONTokener without a reader. For use by subclasses that
+	 * read their input by other means and override {@link #next()},
+	 * {@link #back()}, {@link #end()}, {@link #skipTo(char)} and
+	 * {@link #toString()}.
+	 */
+	protected JSONTokener() {
+		this.eof = false;
+		this.usePrevious = false;
+		this.previous = 0;
+		this.index = 0;
+		this.character = 1;
+		this.line = 1;
+		this.limits = JSONLimits.NONE;
+	}
+
+
 	/**
 	 * Back up one character. This provides a sort of lookahead capability,
 	 * so that you can test for a digit or letter before attempting to parse
@@ -106,6 +128,46 @@ public class JSONTokener {
 	}
 
 
+	/**
+	 * Set the bounds that the text read by this tokener must stay within.
+	 *
+	 * @param limits The limits.
+	 */
+	public void setLimits(JSONLimits limits) {
+		this.limits = limits;
+	}
+
+
+	/**
+	 * @return The bounds that the text read by this tokener must stay within.
+	 */
+	public JSONLimits getLimits() {
+		return this.limits;
+	}
+
+
+	/**
+	 * Record the start of an object or an array.
+	 *
+	 * @throws JSONLimitException If the nesting depth exceeds the maximum depth.
+	 */
+	public void enter() throws JSONLimitException {
+		this.depth += 1;
+		if (this.depth > this.limits.maxDepth()) {
+			throw this.limitError("document exceeds the maximum depth of "
+					+ this.limits.maxDepth(), this.limits.maxDepth());
+		}
+	}
+
+
+	/**
+	 * Record the end of an object or an array.
+	 */
+	public void leave() {
+		this.depth -= 1;
+	}
+
+
 	/**
 	 * Get the hex value of a character (base16).
 	 * @param c A character between '0' and '9' or between 'A' and 'F' or
@@ -171,6 +233,10 @@ public class JSONTokener {
 			if (c <= 0) { // End of stream
 				this.eof = true;
 				c = 0;
+			} else if (this.index >= this.limits.maxDocumentSize()) {
+				throw this.limitError("document exceeds the maximum size of "
+						+ this.limits.maxDocumentSize() + " bytes",
+						this.limits.maxDocumentSize());
 			}
 		}
 		this.index += 1;
@@ -263,6 +329,7 @@ public class JSONTokener {
 		char c;
 		StringBuilder sb = new StringBuilder();
 		for (;;) {
+			this.checkStringLength(sb.length());
 			c = this.next();
 			switch (c) {
 			case 0:
@@ -397,6 +464,7 @@ public class JSONTokener {
 		StringBuilder sb = new StringBuilder();
 		while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
 			sb.append(c);
+			this.checkNumberLength(sb.length());
 			c = this.next();
 		}
 		this.back();
@@ -409,6 +477,131 @@ public class JSONTokener {
 	}
 
 
+	/**
+	 * Get the next key of an object: the next value, as a string. Keys are
+	 * shared through the {@link KeyTable}, so that a key repeated across
+	 * objects is held only once.
+	 * @throws JSONException If syntax error.
+	 *
+	 * @return A key string.
+	 */
+	public String nextKey() throws JSONException {
+		return KeyTable.canonical(this.nextValue().toString());
+	}
+
+
+	/**
+	 * Read the next value if it is an integer literal that {@link #nextValue()}
+	 * would return as an Integer or a Long, without boxing it. The value is
+	 * then available from {@link #longValue()}. If the next value is anything
+	 * else, nothing but whitespace is consumed and the value can be read as
+	 * usual.
+	 * <p>
+	 * This implementation cannot look ahead and always returns false. Tokeners
+	 * that read from a buffer override it.
+	 *
+	 * @return true if an integer has been read.
+	 * @throws JSONException If syntax error.
+	 */
+	public boolean tryNextLong() throws JSONException {
+		return false;
+	}
+
+	/**
+	 * Get the integer read by the last successful call to
+	 * {@link #tryNextLong()}.
+	 *
+	 * @return the integer.
+	 */
+	public long longValue() {
+		throw new IllegalStateException("No integer has been read");
+	}
+
+	/**
+	 * Read the next value if it is a number literal, without building it. The
+	 * value is then available from {@link #doubleValue()}, or from
+	 * {@link #floatValue()} rounded directly to a float. If the next value is
+	 * anything else, nothing but whitespace is consumed and the value can be
+	 * read as usual.
+	 * <p>
+	 * This implementation cannot look ahead and always returns false. Tokeners
+	 * that read from a buffer override it.
+	 *
+	 * @return true if a number has been read.
+	 * @throws JSONException If syntax error.
+	 */
+	public boolean tryNextDouble() throws JSONException {
+		return false;
+	}
+
+	/**
+	 * Get the number read by the last successful call to
+	 * {@link #tryNextDouble()}, as the nearest double.
+	 *
+	 * @return the number.
+	 */
+	public double doubleValue() {
+		throw new IllegalStateException("No number has been read");
+	}
+
+	/**
+	 * Get the number read by the last successful call to
+	 * {@link #tryNextDouble()}, as the nearest float.
+	 *
+	 * @return the number.
+	 */
+	public float floatValue() {
+		throw new IllegalStateException("No number has been read");
+	}
+
+
+	/**
+	 * Skip the next value without building it. The value is checked with the same
+	 * rules as {@link #nextValue()}, so that a malformed value is reported in the
+	 * same way whether it is skipped or read.
+	 *
+	 * @throws JSONException
+	 *             If syntax error.
+	 */
+	public void skipValue() throws JSONException {
+		char c = this.nextClean();
+		if (c == '{' || c == '[') {
+			TreeParser.skip(this, c);
+		} else {
+			this.skipPrimitive(c);
+		}
+	}
+
+
+	/**
+	 * Skip a value that is neither an object nor an array, given its first
+	 * character.
+	 *
+	 * @param c The first character of the value, already read.
+	 * @throws JSONException If syntax error.
+	 */
+	void skipPrimitive(char c) throws JSONException {
+		if (c == '"' || c == '\'') {
+			this.skipString(c);
+			return;
+		}
+
+		boolean empty = true;
+		int length = 0;
+		while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+			if (c > ' ') {
+				empty = false;
+			}
+			this.checkNumberLength(++length);
+			c = this.next();
+		}
+		this.back();
+
+		if (empty) {
+			throw this.syntaxError("Missing value");
+		}
+	}
+
 	/**
 	 * Skip characters until the next character is the requested character.
 	 * If the requested character is not found, no characters are skipped.
@@ -443,6 +636,57 @@ public class JSONTokener {
 	}
 
 
+	/**
+	 * Skip the rest of a quoted string. The opening quote has already been
+	 * read.
+	 *
+	 * @param quote The quoting character, either <code>"</code> or <code>'</code>.
+	 * @throws JSONException Unterminated string or illegal escape.
+	 */
+	protected void skipString(char quote) throws JSONException {
+		int length = 0;
+		for (;;) {
+			this.checkStringLength(length);
+			char c = this.next();
+			switch (c) {
+			case 0:
+			case '\n':
+			case '\r':
+				throw this.syntaxError("Unterminated string");
+			case '\\':
+				c = this.next();
+				switch (c) {
+				case 'b':
+				case 't':
+				case 'n':
+				case 'f':
+				case 'r':
+				case '"':
+				case '\'':
+				case '\\':
+				case '/':
+					break;
+				case 'u':
+					try {
+						Integer.parseInt(this.next(4), 16);
+					} catch (NumberFormatException e) {
+						throw this.syntaxError("Illegal escape.", e);
+					}
+					break;
+				default:
+					throw this.syntaxError("Illegal escape.");
+				}
+				length += 1;
+				break;
+			default:
+				if (c == quote) {
+					return;
+				}
+				length += 1;
+			}
+		}
+	}
+
 	/**
 	 * Make a JSONException to signal a syntax error.
 	 *
@@ -464,6 +708,73 @@ public class JSONTokener {
 		return new JSONException(message + this.toString(), causedBy);
 	}
 
+	/**
+	 * Make a JSONLimitException to signal that the text exceeds one of the
+	 * limits of this tokener.
+	 *
+	 * @param message The error message.
+	 * @param limit The value of the limit that was exceeded.
+	 * @return  A JSONLimitException object, suitable for throwing
+	 */
+	public JSONLimitException limitError(String message, long limit) {
+		return new JSONLimitException(message + this.toString(), limit);
+	}
+
+	/**
+	 * Check the number of characters of a string read so far.
+	 *
+	 * @param length The number of characters.
+	 * @throws JSONLimitException If the length exceeds the maximum string length.
+	 */
+	protected void checkStringLength(int length) throws JSONLimitException {
+		if (length > this.limits.maxStringLength()) {
+			throw this.limitError("string exceeds the maximum length of "
+					+ this.limits.maxStringLength() + " characters",
+					this.limits.maxStringLength());
+		}
+	}
+
+	/**
+	 * Check the number of characters of a number, or of any other value
+	 * without quotes, read so far.
+	 *
+	 * @param length The number of characters.
+	 * @throws JSONLimitException If the length exceeds the maximum number length.
+	 */
+	protected void checkNumberLength(int length) throws JSONLimitException {
+		if (length > this.limits.maxNumberLength()) {
+			throw this.limitError("number exceeds the maximum length of "
+					+ this.limits.maxNumberLength() + " characters",
+					this.limits.maxNumberLength());
+		}
+	}
+
+	/**
+	 * Check the number of members of an object read so far.
+	 *
+	 * @param count The number of members.
+	 * @throws JSONLimitException If the count exceeds the maximum number of entries.
+	 */
+	public void checkMembers(int count) throws JSONLimitException {
+		if (count > this.limits.maxEntries()) {
+			throw this.limitError("object exceeds the maximum of "
+					+ this.limits.maxEntries() + " members", this.limits.maxEntries());
+		}
+	}
+
+	/**
+	 * Check the number of elements of an array read so far.
+	 *
+	 * @param count The number of elements.
+	 * @throws JSONLimitException If the count exceeds the maximum number of entries.
+	 */
+	public void checkElements(int count) throws JSONLimitException {
+		if (count > this.limits.maxEntries()) {
+			throw this.limitError("array exceeds the maximum of "
+					+ this.limits.maxEntries() + " elements", this.limits.maxEntries());
+		}
+	}
+
 	/**
 	 * Make a printable string of this JSONTokener.
 	 *
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A process-wide table of canonical object keys. The tokeners read object keys through it, so the
+ * same key repeated across the objects of a document, or across documents, is held by one shared
+ * <code>String</code> instead of a copy per occurrence. The table is seeded with the member names
+ * of the binding plans as they are built.
+ * <p>
+ * The table is bounded: each key hashes to a pair of slots, and a new key that finds both taken
+ * replaces the second one. Keys longer than {@link #MAX_LENGTH} characters are not kept. Slots are
+ * read and written without locking; strings are immutable, so a racing reader sees either the old
+ * or the new key of a slot, and at worst allocates a key that could have been shared.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class KeyTable {
+
+	/**
+	 * The length of the longest key kept in the table.
+	 */
+
+	public static final int MAX_LENGTH = 64;
+
+	private static final int      CAPACITY = 4096;
+	private static final String[] KEYS = new String[CAPACITY];
+
+	private KeyTable() {
+		//static methods only
+	}
+
+	/**
+	 * Adds a key to the table, unless an equal key is already there.
+	 */
+
+	public static void seed(String key) {
+		canonical(key);
+	}
+
+	/**
+	 * @return the key held in the table that is equal to the given one, or the given key, which is
+	 *         then added to the table.
+	 */
+
+	public static String canonical(String key) {
+		if(key.length() > MAX_LENGTH) {
+			return key;
+		}
+		int h = key.hashCode();
+		int slot = slotOf(h);
+		String first = KEYS[slot];
+		if(first != null && (first == key || first.equals(key))) {
+			return first;
+		}
+		String second = KEYS[slot + 1];
+		if(second != null && (second == key || second.equals(key))) {
+			return second;
+		}
+		KEYS[(first == null) ? slot : slot + 1] = key;
+		return key;
+	}
+
+	/**
+	 * Looks up a key given as ASCII bytes, with the hash code of the equivalent string computed by
+	 * the caller while scanning them.
+	 *
+	 * @param buf the buffer holding the key.
+	 * @param offset the offset of the first byte of the key.
+	 * @param length the number of bytes, all of them below <code>0x80</code>.
+	 * @param hash the value of <code>hashCode()</code> for the key as a string.
+	 * @return the key held in the table, or a new string for the bytes, which is then added to the
+	 *         table.
+	 */
+
+	static String canonical(byte[] buf, int offset, int length, int hash) {
+		if(length > MAX_LENGTH) {
+			return new String(buf, offset, length, StandardCharsets.ISO_8859_1);
+		}
+		int slot = slotOf(hash);
+		String first = KEYS[slot];
+		if(matches(first, buf, offset, length, hash)) {
+			return first;
+		}
+		String second = KEYS[slot + 1];
+		if(matches(second, buf, offset, length, hash)) {
+			return second;
+		}
+		String key = new String(buf, offset, length, StandardCharsets.ISO_8859_1);
+		KEYS[(first == null) ? slot : slot + 1] = key;
+		return key;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static int slotOf(int hash) {
+		return ((hash ^ (hash >>> 16)) << 1) & (CAPACITY - 1);
+	}
+
+	private static boolean matches(String key, byte[] buf, int offset, int length, int hash) {
+		if(key == null || key.length() != length || key.hashCode() != hash) {
+			return false;
+		}
+		for(int i=0; i<length; i++) {
+			if(key.charAt(i) != buf[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads decimal numbers as doubles and floats, correctly rounded, straight from ASCII text.
+ * <p>
+ * Up to 19 significant digits are gathered into a 64-bit word. The value is then computed exactly
+ * with plain floating point arithmetic when the word and the power of ten are both small enough
+ * (the Clinger fast path), and with the Eisel-Lemire algorithm otherwise (Daniel Lemire, "Number
+ * Parsing at a Gigabyte per Second", 2021). When more digits are present, the result is accepted
+ * only if the truncated word and the next one round to the same value. Text that is not a plain
+ * decimal number, and the rare truncated values that cannot be decided this way, are handed to
+ * <code>Double.parseDouble</code> and <code>Float.parseFloat</code>.
+ * <p>
+ * The 128-bit approximations of the powers of five used by the algorithm are computed once, when
+ * the class is initialized.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class NumberParser {
+
+	private static final int Q_MIN = -342;
+	private static final int Q_MAX = 308;
+
+	private static final int MAX_DIGITS = 19;
+
+	private static final double[] D_POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+		1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private static final float[] F_POW10 = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	/**
+	 * Pairs of 64-bit words: the high and low parts of 5<sup>q</sup>, truncated to its 128 most
+	 * significant bits, for every q from Q_MIN to Q_MAX. Negative powers are rounded up.
+	 */
+
+	private static final long[] POW5 = new long[(Q_MAX - Q_MIN + 1) << 1];
+
+	static {
+		for(int q=Q_MIN; q<=Q_MAX; q++) {
+			BigInteger c;
+			if(q < 0) {
+				BigInteger pow = BigInteger.valueOf(5).pow(-q);
+				int z = pow.bitLength();
+				int b = (q >= -27) ? z + 127 : 2 * z + 128;
+				c = BigInteger.ONE.shiftLeft(b).divide(pow).add(BigInteger.ONE);
+				if(c.bitLength() > 128) {
+					c = c.shiftRight(c.bitLength() - 128);
+				}
+			}
+			else {
+				c = BigInteger.valueOf(5).pow(q);
+				c = (c.bitLength() < 128) ? c.shiftLeft(128 - c.bitLength())
+						: c.shiftRight(c.bitLength() - 128);
+			}
+			POW5[(q - Q_MIN) << 1] = c.shiftRight(64).longValue();
+			POW5[((q - Q_MIN) << 1) + 1] = c.longValue();
+		}
+	}
+
+	private NumberParser() {
+		//static methods only
+	}
+
+	static double parseDouble(byte[] buf, int start, int end) {
+		return parse(buf, start, end, false);
+	}
+
+	static float parseFloat(byte[] buf, int start, int end) {
+		return (float) parse(buf, start, end, true);
+	}
+
+	/**
+	 * Same as <code>Double.parseDouble</code>.
+	 *
+	 * @throws NumberFormatException if the text is not a number.
+	 */
+
+	static double parseDouble(String text) {
+		return parse(text, false);
+	}
+
+	/**
+	 * Same as <code>Float.parseFloat</code>.
+	 *
+	 * @throws NumberFormatException if the text is not a number.
+	 */
+
+	static float parseFloat(String text) {
+		return (float) parse(text, true);
+	}
+
+	/**
+	 * Tells whether a correctly rounded double may narrow to a different float than the decimal
+	 * it was rounded from. This only happens when the double lies exactly halfway between two
+	 * adjacent floats; any other double narrows to the float nearest to the decimal.
+	 */
+
+	static boolean isFloatMidpoint(double value) {
+		float f = (float) value;
+		if(f == value || Double.isNaN(value)) {
+			return false;
+		}
+		if(Float.isInfinite(f)) {
+			//halfway between the largest float and the next power of two
+			return Math.abs(value) == (double) Float.MAX_VALUE + Math.ulp(Float.MAX_VALUE) / 2;
+		}
+		float other = (f > value) ? Math.nextDown(f) : Math.nextUp(f);
+		return value == ((double) f + other) / 2;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Parses a number, returning the float value widened to a double if <code>single</code> is
+	 * set.
+	 */
+
+	private static double parse(String text, boolean single) {
+		int end = text.length();
+		int p = 0;
+		boolean negative = p < end && text.charAt(p) == '-';
+		if(negative) {
+			p++;
+		}
+		long w = 0;
+		int digits = 0;
+		int seen = 0;
+		int exp = 0;
+		boolean truncated = false;
+		for(; p < end; p++) {
+			int d = text.charAt(p) - '0';
+			if(d < 0 || d > 9) {
+				break;
+			}
+			seen++;
+			if(digits < MAX_DIGITS) {
+				w = w * 10 + d;
+				if(w != 0) {
+					digits++;
+				}
+			}
+			else {
+				exp++;
+				truncated |= d != 0;
+			}
+		}
+		if(p < end && text.charAt(p) == '.') {
+			for(p++; p < end; p++) {
+				int d = text.charAt(p) - '0';
+				if(d < 0 || d > 9) {
+					break;
+				}
+				seen++;
+				if(digits < MAX_DIGITS) {
+					w = w * 10 + d;
+					exp--;
+					if(w != 0) {
+						digits++;
+					}
+				}
+				else {
+					truncated |= d != 0;
+				}
+			}
+		}
+		if(seen > 0 && p < end && (text.charAt(p) | 0x20) == 'e') {
+			p++;
+			boolean negExp = p < end && text.charAt(p) == '-';
+			if(p < end && (negExp || text.charAt(p) == '+')) {
+				p++;
+			}
+			int first = p;
+			int e = 0;
+			for(; p < end; p++) {
+				int d = text.charAt(p) - '0';
+				if(d < 0 || d > 9) {
+					break;
+				}
+				if(e < 100000) {
+					e = e * 10 + d;
+				}
+			}
+			if(p == first) {
+				seen = 0;
+			}
+			exp += negExp ? -e : e;
+		}
+		if(seen > 0 && p == end) {
+			double value = toDouble(negative, w, exp, truncated, single);
+			if(!Double.isNaN(value)) {
+				return value;
+			}
+		}
+		return single ? Float.parseFloat(text) : Double.parseDouble(text);
+	}
+
+	/**
+	 * Parses a number, returning the float value widened to a double if <code>single</code> is
+	 * set.
+	 */
+
+	private static double parse(byte[] buf, int start, int end, boolean single) {
+		int p = start;
+		boolean negative = p < end && buf[p] == '-';
+		if(negative) {
+			p++;
+		}
+		long w = 0;
+		int digits = 0;
+		int seen = 0;
+		int exp = 0;
+		boolean truncated = false;
+		for(; p < end; p++) {
+			int d = buf[p] - '0';
+			if(d < 0 || d > 9) {
+				break;
+			}
+			seen++;
+			if(digits < MAX_DIGITS) {
+				w = w * 10 + d;
+				if(w != 0) {
+					digits++;
+				}
+			}
+			else {
+				exp++;
+				truncated |= d != 0;
+			}
+		}
+		if(p < end && buf[p] == '.') {
+			for(p++; p < end; p++) {
+				int d = buf[p] - '0';
+				if(d < 0 || d > 9) {
+					break;
+				}
+				seen++;
+				if(digits < MAX_DIGITS) {
+					w = w * 10 + d;
+					exp--;
+					if(w != 0) {
+						digits++;
+					}
+				}
+				else {
+					truncated |= d != 0;
+				}
+			}
+		}
+		if(seen > 0 && p < end && (buf[p] | 0x20) == 'e') {
+			p++;
+			boolean negExp = p < end && buf[p] == '-';
+			if(p < end && (negExp || buf[p] == '+')) {
+				p++;
+			}
+			int first = p;
+			int e = 0;
+			for(; p < end; p++) {
+				int d = buf[p] - '0';
+				if(d < 0 || d > 9) {
+					break;
+				}
+				if(e < 100000) {
+					e = e * 10 + d;
+				}
+			}
+			if(p == first) {
+				seen = 0;
+			}
+			exp += negExp ? -e : e;
+		}
+		if(seen > 0 && p == end) {
+			double value = toDouble(negative, w, exp, truncated, single);
+			if(!Double.isNaN(value)) {
+				return value;
+			}
+		}
+		String text = new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+		return single ? Float.parseFloat(text) : Double.parseDouble(text);
+	}
+
+	/**
+	 * Computes the value of the decimal w 10<sup>q</sup>, or NaN if the digits dropped from w
+	 * could change it. The word w is unsigned.
+	 */
+
+	private static double toDouble(boolean negative, long w, int q, boolean truncated,
+			boolean single) {
+		double value;
+		if(single) {
+			if(!truncated && q >= -10 && q <= 10 && w >= 0 && w <= 1L << 24) {
+				float fval = (float) w;
+				value = (q < 0) ? fval / F_POW10[-q] : fval * F_POW10[q];
+			}
+			else {
+				long bits = toBits(w, q, 23, -127, 0xff, -17, 10, -64, 38);
+				if(truncated && bits != toBits(w + 1, q, 23, -127, 0xff, -17, 10, -64, 38)) {
+					return Double.NaN;
+				}
+				value = Float.intBitsToFloat((int) bits);
+			}
+		}
+		else {
+			if(!truncated && q >= -22 && q <= 22 && w >= 0 && w <= 1L << 53) {
+				double dval = (double) w;
+				value = (q < 0) ? dval / D_POW10[-q] : dval * D_POW10[q];
+			}
+			else {
+				long bits = toBits(w, q, 52, -1023, 0x7ff, -4, 23, Q_MIN, Q_MAX);
+				if(truncated && bits != toBits(w + 1, q, 52, -1023, 0x7ff, -4, 23, Q_MIN, Q_MAX)) {
+					return Double.NaN;
+				}
+				value = Double.longBitsToDouble(bits);
+			}
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * The Eisel-Lemire algorithm: the bits of the binary floating point value nearest to
+	 * w 10<sup>q</sup>, for a format with the given number of explicit mantissa bits.
+	 */
+
+	private static long toBits(long w, int q, int mbits, int minExp, int infinity, int minEven,
+			int maxEven, int minQ, int maxQ) {
+		if(w == 0 || q < minQ) {
+			return 0;
+		}
+		if(q > maxQ) {
+			return (long) infinity << mbits;
+		}
+		int lz = Long.numberOfLeadingZeros(w);
+		w <<= lz;
+
+		int index = (q - Q_MIN) << 1;
+		long high = unsignedMultiplyHigh(w, POW5[index]);
+		long low = w * POW5[index];
+		long precisionMask = -1L >>> (mbits + 3);
+		if((high & precisionMask) == precisionMask) {
+			long next = unsignedMultiplyHigh(w, POW5[index + 1]);
+			low += next;
+			if(Long.compareUnsigned(next, low) > 0) {
+				high++;
+			}
+		}
+
+		int upper = (int) (high >>> 63);
+		int shift = upper + 64 - mbits - 3;
+		long mantissa = high >>> shift;
+		int power2 = (((152170 + 65536) * q) >> 16) + 63 + upper - lz - minExp;
+		if(power2 <= 0) {
+			//subnormal
+			if(-power2 + 1 >= 64) {
+				return 0;
+			}
+			mantissa >>>= -power2 + 1;
+			mantissa += mantissa & 1;
+			mantissa >>>= 1;
+			power2 = (mantissa < (1L << mbits)) ? 0 : 1;
+			return mantissa | ((long) power2 << mbits);
+		}
+		if(Long.compareUnsigned(low, 1) <= 0 && q >= minEven && q <= maxEven
+				&& (mantissa & 3) == 1 && (mantissa << shift) == high) {
+			//exactly halfway between two values: round to even
+			mantissa &= ~1L;
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if(mantissa >= (2L << mbits)) {
+			mantissa = 1L << mbits;
+			power2++;
+		}
+		mantissa &= ~(1L << mbits);
+		if(power2 >= infinity) {
+			return (long) infinity << mbits;
+		}
+		return mantissa | ((long) power2 << mbits);
+	}
+
+	private static long unsignedMultiplyHigh(long x, long y) {
+		return NumberWriter.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes numbers as ASCII digits straight into a byte array.
+ * <p>
+ * Floating point values are written with the shortest decimal that reads back as the same value,
+ * chosen with the Schubfach algorithm of Raffaello Giulietti ("The Schubfach way to render
+ * doubles", 2020). The layout follows <code>Double.toString</code>: plain notation for magnitudes
+ * from 10<sup>-3</sup> up to 10<sup>7</sup> and computerized scientific notation otherwise, with
+ * the trailing zeros and decimal point of plain integral values removed, as
+ * {@link JSONObject#numberToString(Number)} has always done.
+ * <p>
+ * The 126-bit approximations of the powers of ten used by the algorithm are computed once, when
+ * the class is initialized.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class NumberWriter {
+
+	/**
+	 * The maximum number of bytes written for a single number.
+	 */
+
+	static final int MAX_LENGTH = 24;
+
+	private static final byte[] DIGIT_PAIRS = new byte[200];
+	private static final byte[] LONG_MIN =
+			Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+	//double layout
+	private static final int  D_P = 53;
+	private static final int  D_Q_MIN = -1074;
+	private static final long D_C_MIN = 1L << (D_P - 1);
+	private static final int  D_BQ_MASK = 0x7ff;
+	private static final long D_T_MASK = D_C_MIN - 1;
+	private static final int  D_C_TINY = 3;
+
+	//float layout
+	private static final int  F_P = 24;
+	private static final int  F_Q_MIN = -149;
+	private static final int  F_C_MIN = 1 << (F_P - 1);
+	private static final int  F_BQ_MASK = 0xff;
+	private static final int  F_T_MASK = F_C_MIN - 1;
+	private static final int  F_C_TINY = 8;
+
+	private static final int  K_MIN = -324;
+	private static final int  K_MAX = 292;
+	private static final long MASK_63 = (1L << 63) - 1;
+	private static final long MASK_32 = (1L << 32) - 1;
+
+	/**
+	 * Pairs of 63-bit words: the high and low parts of floor(10<sup>-k</sup> 2<sup>-r</sup>) + 1,
+	 * for every k from K_MIN to K_MAX, with r chosen so that the value lies in
+	 * [2<sup>125</sup>, 2<sup>126</sup>).
+	 */
+
+	private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+	static {
+		for(int i=0; i<100; i++) {
+			DIGIT_PAIRS[i << 1] = (byte) ('0' + i / 10);
+			DIGIT_PAIRS[(i << 1) + 1] = (byte) ('0' + i % 10);
+		}
+		for(int k=K_MIN; k<=K_MAX; k++) {
+			int r = flog2pow10(-k) - 125;
+			BigInteger beta;
+			if(k <= 0) {
+				BigInteger pow = BigInteger.TEN.pow(-k);
+				beta = (r >= 0) ? pow.shiftRight(r) : pow.shiftLeft(-r);
+			}
+			else {
+				beta = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+			}
+			BigInteger g = beta.add(BigInteger.ONE);
+			G[(k - K_MIN) << 1] = g.shiftRight(63).longValue();
+			G[((k - K_MIN) << 1) + 1] = g.longValue() & MASK_63;
+		}
+	}
+
+	private NumberWriter() {
+		//static methods only
+	}
+
+	static int writeLong(long value, byte[] buf, int pos) {
+		if(value < 0) {
+			if(value == Long.MIN_VALUE) {
+				System.arraycopy(LONG_MIN, 0, buf, pos, LONG_MIN.length);
+				return pos + LONG_MIN.length;
+			}
+			buf[pos++] = '-';
+			value = -value;
+		}
+		int end = pos + digitCount(value);
+		writeDigits(value, buf, end);
+		return end;
+	}
+
+	/**
+	 * @param value a finite double.
+	 */
+
+	static int writeDouble(double value, byte[] buf, int pos) {
+		long bits = Double.doubleToRawLongBits(value);
+		long t = bits & D_T_MASK;
+		int bq = (int) (bits >>> (D_P - 1)) & D_BQ_MASK;
+		if(bits < 0) {
+			buf[pos++] = '-';
+		}
+		if(bq != 0) {
+			int mq = -D_Q_MIN + 1 - bq;
+			long c = D_C_MIN | t;
+			if(0 < mq && mq < D_P) {
+				long f = c >> mq;
+				if(f << mq == c) {
+					return writeDecimal(f, 0, buf, pos);
+				}
+			}
+			return toDecimal(-mq, c, 0, buf, pos);
+		}
+		if(t != 0) {
+			return (t < D_C_TINY) ? toDecimal(D_Q_MIN, 10 * t, -1, buf, pos)
+					: toDecimal(D_Q_MIN, t, 0, buf, pos);
+		}
+		buf[pos++] = '0';
+		return pos;
+	}
+
+	/**
+	 * @param value a finite float.
+	 */
+
+	static int writeFloat(float value, byte[] buf, int pos) {
+		int bits = Float.floatToRawIntBits(value);
+		int t = bits & F_T_MASK;
+		int bq = (bits >>> (F_P - 1)) & F_BQ_MASK;
+		if(bits < 0) {
+			buf[pos++] = '-';
+		}
+		if(bq != 0) {
+			int mq = -F_Q_MIN + 1 - bq;
+			int c = F_C_MIN | t;
+			if(0 < mq && mq < F_P) {
+				int f = c >> mq;
+				if(f << mq == c) {
+					return writeDecimal(f, 0, buf, pos);
+				}
+			}
+			return toDecimal(-mq, c, 0, buf, pos);
+		}
+		if(t != 0) {
+			return (t < F_C_TINY) ? toDecimal(F_Q_MIN, 10 * t, -1, buf, pos)
+					: toDecimal(F_Q_MIN, t, 0, buf, pos);
+		}
+		buf[pos++] = '0';
+		return pos;
+	}
+
+	static String toString(double value) {
+		byte[] buf = new byte[MAX_LENGTH];
+		int length = writeDouble(value, buf, 0);
+		return new String(buf, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	static String toString(float value) {
+		byte[] buf = new byte[MAX_LENGTH];
+		int length = writeFloat(value, buf, 0);
+		return new String(buf, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Finds the shortest decimal in the rounding interval of c 2<sup>q</sup>, closest to it on
+	 * ties, and writes it.
+	 */
+
+	private static int toDecimal(int q, long c, int dk, byte[] buf, int pos) {
+		int out = (int) c & 0x1;
+		long cb = c << 2;
+		long cbr = cb + 2;
+		long cbl;
+		int k;
+		if(c != D_C_MIN || q == D_Q_MIN) {
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		}
+		else {
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+		int h = q + flog2pow10(-k) + 2;
+
+		long g1 = G[(k - K_MIN) << 1];
+		long g0 = G[((k - K_MIN) << 1) + 1];
+
+		long vb = rop(g1, g0, cb << h);
+		long vbl = rop(g1, g0, cbl << h);
+		long vbr = rop(g1, g0, cbr << h);
+
+		long s = vb >> 2;
+		if(s >= 100) {
+			long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+			long tp10 = sp10 + 10;
+			boolean upin = vbl + out <= sp10 << 2;
+			boolean wpin = (tp10 << 2) + out <= vbr;
+			if(upin != wpin) {
+				return writeDecimal(upin ? sp10 : tp10, k, buf, pos);
+			}
+		}
+
+		long t = s + 1;
+		boolean uin = vbl + out <= s << 2;
+		boolean win = (t << 2) + out <= vbr;
+		if(uin != win) {
+			return writeDecimal(uin ? s : t, k + dk, buf, pos);
+		}
+		long cmp = vb - ((s + t) << 1);
+		return writeDecimal((cmp < 0 || (cmp == 0 && (s & 0x1) == 0)) ? s : t, k + dk, buf, pos);
+	}
+
+	private static int toDecimal(int q, int c, int dk, byte[] buf, int pos) {
+		int out = c & 0x1;
+		long cb = c << 2;
+		long cbr = cb + 2;
+		long cbl;
+		int k;
+		if(c != F_C_MIN || q == F_Q_MIN) {
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		}
+		else {
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+		int h = q + flog2pow10(-k) + 33;
+
+		long g = G[(k - K_MIN) << 1] + 1;
+
+		int vb = rop(g, cb << h);
+		int vbl = rop(g, cbl << h);
+		int vbr = rop(g, cbr << h);
+
+		int s = vb >> 2;
+		if(s >= 100) {
+			int sp10 = 10 * (int) ((s * 1_717_986_919L) >>> 34);
+			int tp10 = sp10 + 10;
+			boolean upin = vbl + out <= sp10 << 2;
+			boolean wpin = (tp10 << 2) + out <= vbr;
+			if(upin != wpin) {
+				return writeDecimal(upin ? sp10 : tp10, k, buf, pos);
+			}
+		}
+
+		int t = s + 1;
+		boolean uin = vbl + out <= s << 2;
+		boolean win = (t << 2) + out <= vbr;
+		if(uin != win) {
+			return writeDecimal(uin ? s : t, k + dk, buf, pos);
+		}
+		int cmp = vb - ((s + t) << 1);
+		return writeDecimal((cmp < 0 || (cmp == 0 && (s & 0x1) == 0)) ? s : t, k + dk, buf, pos);
+	}
+
+	/**
+	 * Writes the positive decimal f 10<sup>e</sup>.
+	 */
+
+	private static int writeDecimal(long f, int e, byte[] buf, int pos) {
+		while(f % 10 == 0) {
+			f /= 10;
+			e++;
+		}
+		int len = digitCount(f);
+		int exp = e + len - 1;
+
+		if(exp >= 0 && exp < 7) {
+			//plain notation, integral part first
+			if(len <= exp + 1) {
+				writeDigits(f, buf, pos + len);
+				pos += len;
+				for(int i=len; i<=exp; i++) {
+					buf[pos++] = '0';
+				}
+				return pos;
+			}
+			int intLen = exp + 1;
+			writeDigits(f, buf, pos + len + 1);
+			System.arraycopy(buf, pos + 1, buf, pos, intLen);
+			buf[pos + intLen] = '.';
+			return pos + len + 1;
+		}
+		if(exp < 0 && exp >= -3) {
+			buf[pos++] = '0';
+			buf[pos++] = '.';
+			for(int i=-1; i>exp; i--) {
+				buf[pos++] = '0';
+			}
+			writeDigits(f, buf, pos + len);
+			return pos + len;
+		}
+
+		//computerized scientific notation, with at least one fraction digit
+		writeDigits(f, buf, pos + len + 1);
+		buf[pos] = buf[pos + 1];
+		buf[pos + 1] = '.';
+		pos += len + 1;
+		if(len == 1) {
+			buf[pos++] = '0';
+		}
+		buf[pos++] = 'E';
+		if(exp < 0) {
+			buf[pos++] = '-';
+			exp = -exp;
+		}
+		int end = pos + digitCount(exp);
+		writeDigits(exp, buf, end);
+		return end;
+	}
+
+	/**
+	 * Writes the digits of a non-negative value so that the last digit lands just before the
+	 * given end position.
+	 */
+
+	private static void writeDigits(long value, byte[] buf, int end) {
+		int pos = end;
+		while(value >= 100) {
+			long quot = value / 100;
+			int pair = (int) (value - quot * 100) << 1;
+			buf[--pos] = DIGIT_PAIRS[pair + 1];
+			buf[--pos] = DIGIT_PAIRS[pair];
+			value = quot;
+		}
+		if(value >= 10) {
+			int pair = (int) value << 1;
+			buf[--pos] = DIGIT_PAIRS[pair + 1];
+			buf[--pos] = DIGIT_PAIRS[pair];
+		}
+		else {
+			buf[--pos] = (byte) ('0' + value);
+		}
+	}
+
+	private static int digitCount(long value) {
+		int count = 1;
+		long bound = 10;
+		while(count < 19 && value >= bound) {
+			count++;
+			bound *= 10;
+		}
+		return count;
+	}
+
+	private static long rop(long g1, long g0, long cp) {
+		long x1 = multiplyHigh(g0, cp);
+		long y0 = g1 * cp;
+		long y1 = multiplyHigh(g1, cp);
+		long z = (y0 >>> 1) + x1;
+		long vbp = y1 + (z >>> 63);
+		return vbp | (((z & MASK_63) + MASK_63) >>> 63);
+	}
+
+	private static int rop(long g, long cp) {
+		long x1 = multiplyHigh(g, cp);
+		long vbp = x1 >>> 31;
+		return (int) (vbp | (((x1 & MASK_32) + MASK_32) >>> 32));
+	}
+
+	/**
+	 * The high 64 bits of the 128-bit product of two signed values; the same as
+	 * <code>Math.multiplyHigh</code>, which is not available on Java 8.
+	 */
+
+	static long multiplyHigh(long x, long y) {
+		long x1 = x >> 32;
+		long x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32;
+		long y2 = y & 0xFFFFFFFFL;
+		long z2 = x2 * y2;
+		long t = x1 * y2 + (z2 >>> 32);
+		long z1 = t & 0xFFFFFFFFL;
+		long z0 = t >> 32;
+		z1 += x2 * y1;
+		return x1 * y1 + z0 + (z1 >> 32);
+	}
+
+	/**
+	 * floor(e log<sub>10</sub>2), for |e| &lt;= 5456721.
+	 */
+
+	private static int flog10pow2(int e) {
+		return (int) ((e * 661_971_961_083L) >> 41);
+	}
+
+	/**
+	 * floor(log<sub>10</sub>(3/4 2<sup>e</sup>)), for |e| &lt;= 1200.
+	 */
+
+	private static int flog10threeQuartersPow2(int e) {
+		return (int) ((e * 661_971_961_083L + -274_743_187_321L) >> 41);
+	}
+
+	/**
+	 * floor(e log<sub>2</sub>10), for |e| &lt;= 1233.
+	 */
+
+	private static int flog2pow10(int e) {
+		return (int) ((e * 913_124_641_741L) >> 38);
+	}
+}
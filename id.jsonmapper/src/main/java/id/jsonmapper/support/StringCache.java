@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of string values that hands back a shared instance for values seen recently.
+ * Values hash to a set of two slots that is kept in least recently used order: a hit in the second
+ * slot moves the value to the first one, and a new value enters the first slot and pushes the
+ * previous occupant to the second, evicting the value held there.
+ * <p>
+ * Slots are read and written without locking; strings are immutable, so a racing reader sees
+ * either the old or the new value of a slot, and at worst misses a value that could have been
+ * shared. Values longer than {@link KeyTable#MAX_LENGTH} characters are passed through without
+ * being cached or counted.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public final class StringCache {
+
+	private final String[]  values;
+	private final int       mask;
+	private final LongAdder hits;
+	private final LongAdder misses;
+
+	/**
+	 * @param capacity the number of values to keep, rounded up to a power of two of at least 2.
+	 */
+
+	public StringCache(int capacity) {
+		if(capacity <= 0 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("capacity out of range: " + capacity);
+		}
+		int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+		values = new String[size];
+		mask = size - 2;
+		hits = new LongAdder();
+		misses = new LongAdder();
+	}
+
+	/**
+	 * @return the cached value equal to the given one, or the given value, which is then cached.
+	 *         <code>null</code> is returned as is.
+	 */
+
+	public String dedup(String value) {
+		if(value == null || value.length() > KeyTable.MAX_LENGTH) {
+			return value;
+		}
+		int h = value.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		String first = values[slot];
+		if(first != null && first.equals(value)) {
+			hits.increment();
+			return first;
+		}
+		String second = values[slot + 1];
+		if(second != null && second.equals(value)) {
+			values[slot + 1] = first;
+			values[slot] = second;
+			hits.increment();
+			return second;
+		}
+		values[slot + 1] = first;
+		values[slot] = value;
+		misses.increment();
+		return value;
+	}
+
+	/**
+	 * @return the number of values kept by the cache.
+	 */
+
+	public int capacity() {
+		return values.length;
+	}
+
+	/**
+	 * @return the number of lookups that returned a cached value.
+	 */
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that added the value to the cache.
+	 */
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the fraction of lookups that returned a cached value, or 0 if there has been none.
+	 */
+
+	public double hitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return (total == 0) ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Clears the hit and miss counts. The cached values are kept.
+	 */
+
+	public void resetStats() {
+		hits.reset();
+		misses.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "StringCache[capacity " + values.length + ", hits " + hits.sum() + ", misses "
+				+ misses.sum() + "]";
+	}
+}
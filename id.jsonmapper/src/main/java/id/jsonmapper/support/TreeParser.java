@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import java.util.Arrays;
+
+/**
+ * Reads nested objects and arrays without recursion. The objects and arrays that are open at any
+ * point are kept on an explicit stack of frames, so the depth of a document is bounded by the
+ * {@link JSONLimits} of the tokener rather than by the size of the thread stack. Each frame
+ * records the state its parent resumes in once the frame is closed, and the number of entries read
+ * into it so far, which is checked against the limits of the tokener as the entries are read.
+ * <p>
+ * The tokener is driven through the same sequence of calls as the recursive descent of the
+ * original <code>JSONObject</code> and <code>JSONArray</code> constructors; values, syntax errors
+ * and the positions they report are the same.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+final class TreeParser {
+
+	private static final int OBJECT_KEY    = 0;
+	private static final int OBJECT_COLON  = 1;
+	private static final int OBJECT_NEXT   = 2;
+	private static final int ARRAY_FIRST   = 3;
+	private static final int ARRAY_ELEMENT = 4;
+	private static final int ARRAY_NEXT    = 5;
+	private static final int DONE          = 6;
+
+	/**
+	 * Reads the members of an object or the elements of an array into the given container, and
+	 * everything nested in them.
+	 *
+	 * @param x the tokener, positioned just after the opening brace or bracket of the container.
+	 * @param root an empty <code>JSONObject</code> or <code>JSONArray</code>.
+	 */
+
+	static void parse(JSONTokener x, Object root) throws JSONException {
+		new TreeParser(x, true).run((root instanceof JSONObject) ? '{' : '[', root);
+	}
+
+	/**
+	 * Skips an object or an array, checking it with the same rules as {@link #parse}.
+	 *
+	 * @param x the tokener, positioned just after the opening brace or bracket.
+	 * @param open the opening character.
+	 */
+
+	static void skip(JSONTokener x, char open) throws JSONException {
+		new TreeParser(x, false).run(open, null);
+	}
+
+	private final JSONTokener x;
+	private final boolean     build;
+	private Object[]          nodes;
+	private String[]          keys;
+	private int[]             resume;
+	private int[]             counts;
+	private int               top;
+
+	private TreeParser(JSONTokener x, boolean build) {
+		this.x = x;
+		this.build = build;
+		nodes = build ? new Object[8] : null;
+		keys = build ? new String[8] : null;
+		resume = new int[8];
+		counts = new int[8];
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private void run(char open, Object root) throws JSONException {
+		int phase = push(open, root, DONE);
+		while(phase != DONE) {
+			char c;
+			switch(phase) {
+			case OBJECT_KEY:
+				c = x.nextClean();
+				if(c == 0) {
+					throw x.syntaxError("A JSONObject text must end with '}'");
+				}
+				if(c == '}') {
+					phase = pop();
+					break;
+				}
+				x.checkMembers(++counts[top - 1]);
+				if(c == '{' || c == '[') {
+					phase = push(c, null, OBJECT_COLON);
+				}
+				else {
+					if(build) {
+						x.back();
+						keys[top - 1] = x.nextKey();
+					}
+					else {
+						x.skipPrimitive(c);
+					}
+					phase = OBJECT_COLON;
+				}
+				break;
+
+			case OBJECT_COLON:
+				if(x.nextClean() != ':') {
+					throw x.syntaxError("Expected a ':' after a key");
+				}
+				phase = value(x.nextClean(), OBJECT_NEXT);
+				break;
+
+			case OBJECT_NEXT:
+				switch(x.nextClean()) {
+				case ';':
+				case ',':
+					if(x.nextClean() == '}') {
+						phase = pop();
+					}
+					else {
+						x.back();
+						phase = OBJECT_KEY;
+					}
+					break;
+				case '}':
+					phase = pop();
+					break;
+				default:
+					throw x.syntaxError("Expected a ',' or '}'");
+				}
+				break;
+
+			case ARRAY_FIRST:
+				if(x.nextClean() == ']') {
+					phase = pop();
+				}
+				else {
+					x.back();
+					phase = ARRAY_ELEMENT;
+				}
+				break;
+
+			case ARRAY_ELEMENT:
+				x.checkElements(++counts[top - 1]);
+				c = x.nextClean();
+				if(c == ',') {
+					//a missing element stands for null
+					x.back();
+					if(build) {
+						((JSONArray) nodes[top - 1]).put(JSONObject.NULL);
+					}
+					phase = ARRAY_NEXT;
+				}
+				else {
+					phase = value(c, ARRAY_NEXT);
+				}
+				break;
+
+			case ARRAY_NEXT:
+				switch(x.nextClean()) {
+				case ',':
+					if(x.nextClean() == ']') {
+						phase = pop();
+					}
+					else {
+						x.back();
+						phase = ARRAY_ELEMENT;
+					}
+					break;
+				case ']':
+					phase = pop();
+					break;
+				default:
+					throw x.syntaxError("Expected a ',' or ']'");
+				}
+				break;
+
+			default:
+				throw new IllegalStateException("phase " + phase);
+			}
+		}
+	}
+
+	/**
+	 * Reads the value starting with the given character, already read, into the innermost frame;
+	 * an object or an array is opened as a new frame instead.
+	 *
+	 * @return the phase to continue in.
+	 */
+
+	private int value(char c, int next) throws JSONException {
+		if(c == '{' || c == '[') {
+			return push(c, null, next);
+		}
+		if(!build) {
+			x.skipPrimitive(c);
+			return next;
+		}
+		x.back();
+		add(top - 1, x.nextValue());
+		return next;
+	}
+
+	private int push(char open, Object node, int next) throws JSONException {
+		x.enter();
+		if(top == resume.length) {
+			int capacity = top << 1;
+			resume = Arrays.copyOf(resume, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			if(build) {
+				nodes = Arrays.copyOf(nodes, capacity);
+				keys = Arrays.copyOf(keys, capacity);
+			}
+		}
+		if(build) {
+			nodes[top] = (node != null) ? node : (open == '{') ? new JSONObject() : new JSONArray();
+		}
+		resume[top] = next;
+		counts[top] = 0;
+		top++;
+		return (open == '{') ? OBJECT_KEY : ARRAY_FIRST;
+	}
+
+	/**
+	 * Closes the innermost frame and hands its object or array to the enclosing frame, as a key
+	 * or as a value depending on the phase the enclosing frame resumes in.
+	 *
+	 * @return the phase to continue in.
+	 */
+
+	private int pop() throws JSONException {
+		x.leave();
+		top--;
+		int next = resume[top];
+		if(build) {
+			Object node = nodes[top];
+			nodes[top] = null;
+			keys[top] = null;
+			if(next == OBJECT_COLON) {
+				keys[top - 1] = KeyTable.canonical(node.toString());
+			}
+			else if(next != DONE) {
+				add(top - 1, node);
+			}
+		}
+		return next;
+	}
+
+	private void add(int frame, Object value) throws JSONException {
+		Object node = nodes[frame];
+		if(node instanceof JSONObject) {
+			((JSONObject) node).putOnce(keys[frame], value);
+			keys[frame] = null;
+		}
+		else {
+			((JSONArray) node).put(value);
+		}
+	}
+}
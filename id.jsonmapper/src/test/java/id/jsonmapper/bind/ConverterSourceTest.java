@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.bind;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import id.jsonmapper.FieldConverter;
+import id.jsonmapper.ThreadSafe;
+
+/**
+ * Checks how {@link ConverterSource} lends converter instances.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class ConverterSourceTest {
+
+	@Test
+	public void instanceInUseIsNotLentAgain() throws ReflectiveOperationException {
+		ConverterSource source = ConverterSource.of(PlainConverter.class);
+		FieldConverter first = source.acquire();
+		FieldConverter second = source.acquire();
+		assertNotSame(first, second);
+		source.release(first);
+		source.release(second);
+	}
+
+	@Test
+	public void releasedInstanceIsReused() throws ReflectiveOperationException {
+		ConverterSource source = ConverterSource.of(PlainConverter.class);
+		FieldConverter conv = source.acquire();
+		source.release(conv);
+		assertSame(conv, source.acquire());
+		source.release(conv);
+	}
+
+	@Test
+	public void threadSafeInstanceIsShared() throws ReflectiveOperationException {
+		ConverterSource source = ConverterSource.of(SharedConverter.class);
+		assertSame(source.acquire(), source.acquire());
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes that represent the converters
+
+	public static class PlainConverter implements FieldConverter {
+	}
+
+	@ThreadSafe
+	public static class SharedConverter implements FieldConverter {
+	}
+}
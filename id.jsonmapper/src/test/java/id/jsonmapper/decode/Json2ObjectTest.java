@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.decode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import id.jsonmapper.JSON;
+import id.jsonmapper.support.JSONException;
+
+/**
+ * Checks that a document decodes to the same values through the tree, from a stream and straight
+ * from the input bytes.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class Json2ObjectTest {
+
+	/**
+	 * Rounds to a double that lies exactly halfway between 1 and the next float, but is itself
+	 * slightly above it, so the nearest float is the upper one.
+	 */
+
+	private static final String ABOVE_MIDPOINT = "1.00000005960464477539062500001";
+
+	/**
+	 * Number of ways a document is decoded by {@link #decodeAll}.
+	 */
+
+	private static final int PATHS = 3;
+
+	@Test
+	public void floatsAreRoundedFromTheText() throws IOException {
+		float expected = Math.nextUp(1f);
+		String v = ABOVE_MIDPOINT;
+		String text = "{\"f\":" + v + ",\"bf\":" + v + ",\"fa\":[" + v + "],\"fl\":[" + v + "],"
+				+ "\"fm\":{\"a\":" + v + "}}";
+		for(Floats floats : decodeAll(text, Floats.class)) {
+			assertEquals(expected, floats.f, 0f);
+			assertEquals(Float.valueOf(expected), floats.bf);
+			assertArrayEquals(new float[] {expected}, floats.fa, 0f);
+			assertEquals(Collections.singletonList(expected), floats.fl);
+			assertEquals(Collections.singletonMap("a", expected), floats.fm);
+		}
+	}
+
+	@Test
+	public void integralArrayElementsAreRangeChecked() throws IOException {
+		String text = "{\"ia\":[1,9999999999],\"sa\":[70000],\"la\":[1e30],\"k\":3}";
+		for(Integrals integrals : decodeAll(text, Integrals.class)) {
+			assertNull(integrals.ia);
+			assertNull(integrals.sa);
+			assertNull(integrals.la);
+			assertEquals(3, integrals.k);
+		}
+
+		text = "{\"ia\":[-2147483648,2147483647],\"sa\":[-32768,\"32767\"],"
+				+ "\"la\":[-9223372036854775808],\"k\":3}";
+		for(Integrals integrals : decodeAll(text, Integrals.class)) {
+			assertArrayEquals(new int[] {Integer.MIN_VALUE, Integer.MAX_VALUE}, integrals.ia);
+			assertArrayEquals(new short[] {Short.MIN_VALUE, Short.MAX_VALUE}, integrals.sa);
+			assertArrayEquals(new long[] {Long.MIN_VALUE}, integrals.la);
+		}
+	}
+
+	@Test
+	public void integralElementsAreRangeChecked() throws IOException {
+		String text = "{\"li\":[1,9999999999],\"ss\":[70000],\"ll\":[1e30],"
+				+ "\"m\":{\"a\":9999999999},\"ml\":{\"a\":1e30},\"k\":3}";
+		for(IntegralElements elements : decodeAll(text, IntegralElements.class)) {
+			assertNull(elements.li);
+			assertNull(elements.ss);
+			assertNull(elements.ll);
+			assertNull(elements.m);
+			assertNull(elements.ml);
+			assertEquals(3, elements.k);
+		}
+
+		text = "{\"li\":[-2147483648,2147483647],\"ss\":[-32768],\"ll\":[-9223372036854775808],"
+				+ "\"m\":{\"a\":2147483647},\"ml\":{\"a\":9223372036854775807},\"k\":3}";
+		for(IntegralElements elements : decodeAll(text, IntegralElements.class)) {
+			assertEquals(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE), elements.li);
+			assertEquals(Collections.singleton(Short.MIN_VALUE), elements.ss);
+			assertEquals(Collections.singletonList(Long.MIN_VALUE), elements.ll);
+			assertEquals(Collections.singletonMap("a", Integer.MAX_VALUE), elements.m);
+			assertEquals(Collections.singletonMap("a", Long.MAX_VALUE), elements.ml);
+		}
+	}
+
+	@Test
+	public void duplicateKeysAreRejected() throws IOException {
+		String mapped = "Duplicate key \"k\"";
+		assertArrayEquals(new String[] {mapped, mapped, mapped},
+				errorsOf("{\"k\":1,\"k\":2}", Integrals.class));
+
+		String unmapped = "Duplicate key \"u\"";
+		assertArrayEquals(new String[] {unmapped, unmapped, unmapped},
+				errorsOf("{\"u\":1,\"k\":3,\"u\":2}", Integrals.class));
+	}
+
+	@Test
+	public void skippedValuesAreNotCheckedForDuplicateKeys() throws IOException {
+		String nested = "Duplicate key \"a\"";
+		assertArrayEquals(new String[] {nested, nested, null},
+				errorsOf("{\"u\":{\"a\":1,\"a\":2},\"k\":3}", Integrals.class));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	/**
+	 * Decodes the text through the tree built from bytes, through the tree built from a stream
+	 * and straight from the bytes.
+	 */
+
+	@SuppressWarnings("unchecked")
+	private static <T> T[] decodeAll(String text, Class<T> type) throws IOException {
+		byte[] data = text.getBytes(StandardCharsets.UTF_8);
+		T[] results = (T[]) Array.newInstance(type, PATHS);
+		for(int i=0; i<PATHS; i++) {
+			results[i] = decode(i, data, type);
+		}
+		return results;
+	}
+
+	/**
+	 * Decodes the text the same ways as {@link #decodeAll}, expecting each of them to fail.
+	 *
+	 * @return the error message of each decoding, or <code>null</code> where the text decoded.
+	 */
+
+	private static String[] errorsOf(String text, Class<?> type) throws IOException {
+		byte[] data = text.getBytes(StandardCharsets.UTF_8);
+		String[] errors = new String[PATHS];
+		for(int i=0; i<PATHS; i++) {
+			try {
+				decode(i, data, type);
+			}
+			catch(JSONException exep) {
+				errors[i] = exep.getMessage();
+			}
+		}
+		return errors;
+	}
+
+	private static <T> T decode(int path, byte[] data, Class<T> type) throws IOException {
+		switch(path) {
+		case 0:
+			return type.cast(new Json2Object(data).convert(type));
+		case 1:
+			return type.cast(new Json2Object(new ByteArrayInputStream(data)).convert(type));
+		default:
+			return Json2Object.decode(data, type);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner classes that are decoded
+
+	public static class Floats {
+
+		@JSON("f")
+		float f;
+
+		@JSON("bf")
+		Float bf;
+
+		@JSON("fa")
+		float[] fa;
+
+		@JSON("fl")
+		List<Float> fl;
+
+		@JSON("fm")
+		Map<String, Float> fm;
+	}
+
+	public static class Integrals {
+
+		@JSON("ia")
+		int[] ia;
+
+		@JSON("sa")
+		short[] sa;
+
+		@JSON("la")
+		long[] la;
+
+		@JSON("k")
+		int k;
+	}
+
+	public static class IntegralElements {
+
+		@JSON("li")
+		List<Integer> li;
+
+		@JSON("ss")
+		Set<Short> ss;
+
+		@JSON("ll")
+		List<Long> ll;
+
+		@JSON("m")
+		Map<String, Integer> m;
+
+		@JSON("ml")
+		Map<String, Long> ml;
+
+		@JSON("k")
+		int k;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.encode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import id.jsonmapper.JSON;
+
+/**
+ * Checks that all compact overloads of {@link Object2Json} write the same text, for objects as
+ * well as for list and set roots.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class Object2JsonTest {
+
+	@Test
+	public void objectRoot() {
+		assertCompact("{\"name\":\"a\",\"count\":1}", new Item("a", 1));
+	}
+
+	@Test
+	public void listRoot() {
+		List<Item> items = Arrays.asList(new Item("a", 1), new Item("b", 2));
+		assertCompact("[{\"name\":\"a\",\"count\":1},{\"name\":\"b\",\"count\":2}]", items);
+	}
+
+	@Test
+	public void setRoot() {
+		assertCompact("[\"x\",\"y\"]", new LinkedHashSet<>(Arrays.asList("x", "y")));
+	}
+
+	@Test
+	public void prettyListRoot() {
+		byte[] text = new Object2Json().convert(Arrays.asList("x", "y"), true);
+		assertEquals("[\n  \"x\",\n  \"y\"\n]", new String(text, StandardCharsets.UTF_8));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void assertCompact(String expected, Object obj) {
+		Object2Json encoder = new Object2Json();
+		byte[] text = encoder.convert(obj);
+		assertEquals(expected, new String(text, StandardCharsets.UTF_8));
+		assertArrayEquals(text, encoder.convert(obj, false));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.convert(obj, out);
+		assertArrayEquals(text, out.toByteArray());
+
+		ByteBuffer buf = ByteBuffer.allocate(256);
+		encoder.convert(obj, buf);
+		assertArrayEquals(text, Arrays.copyOf(buf.array(), buf.position()));
+
+		byte[] dest = new byte[256];
+		int length = encoder.convert(obj, dest, 3);
+		assertArrayEquals(text, Arrays.copyOfRange(dest, 3, 3 + length));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Inner class that is converted to JSON
+
+	public static class Item {
+
+		@JSON("name")
+		private String name;
+
+		@JSON("count")
+		private int count;
+
+		public Item() {
+		}
+
+		Item(String name, int count) {
+			this.name = name;
+			this.count = count;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link CompactMap} against a <code>LinkedHashMap</code>, below and above the size at
+ * which it stops scanning its arrays.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class CompactMapTest {
+
+	@Test
+	public void sameAsLinkedHashMap() {
+		Random random = new Random(42);
+		for(int round=0; round<200; round++) {
+			CompactMap map = new CompactMap();
+			Map<String, Object> expected = new LinkedHashMap<>();
+			int keyRange = 1 + random.nextInt(40);
+			for(int op=0; op<200; op++) {
+				String key = "k" + random.nextInt(keyRange);
+				switch(random.nextInt(6)) {
+				case 0:
+				case 1:
+					assertEquals(expected.put(key, op), map.put(key, op));
+					break;
+				case 2:
+					assertEquals(expected.putIfAbsent(key, op), map.putIfAbsent(key, op));
+					break;
+				case 3:
+					assertEquals(expected.remove(key), map.remove(key));
+					break;
+				case 4:
+					removeEvery(expected.keySet().iterator(), 3);
+					removeEvery(map.keySet().iterator(), 3);
+					break;
+				default:
+					assertEquals(expected.get(key), map.get(key));
+				}
+				assertSame(expected, map);
+			}
+		}
+	}
+
+	@Test
+	public void collidingKeys() {
+		//"Aa" and "BB" have the same hash, so do all strings made of them
+		List<String> keys = new ArrayList<>();
+		for(int i=0; i<1024; i++) {
+			StringBuilder sb = new StringBuilder();
+			for(int bit=0; bit<10; bit++) {
+				sb.append(((i >> bit) & 1) == 0 ? "Aa" : "BB");
+			}
+			keys.add(sb.toString());
+		}
+		CompactMap map = new CompactMap();
+		for(int i=0; i<keys.size(); i++) {
+			map.put(keys.get(i), i);
+		}
+		for(int i=0; i<keys.size(); i+=2) {
+			map.remove(keys.get(i));
+		}
+		assertEquals(keys.size() / 2, map.size());
+		for(int i=0; i<keys.size(); i++) {
+			assertEquals((i % 2 == 0) ? null : i, map.get(keys.get(i)));
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void removeEvery(Iterator<String> iter, int step) {
+		for(int i=0; iter.hasNext(); i++) {
+			iter.next();
+			if(i % step == 0) {
+				iter.remove();
+			}
+		}
+	}
+
+	private static void assertSame(Map<String, Object> expected, CompactMap map) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) The original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package id.jsonmapper.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link JSONByteTokener} and {@link JSONStringTokener} report syntax and limit errors
+ * at the same positions as {@link JSONTokener} reading the same text through a reader.
+ * <p>
+ *
+ * @author indroneel
+ */
+
+public class JSONByteTokenerTest {
+
+	@Test
+	public void carriageReturnReadAgainAfterStepBack() {
+		assertSameError("{\"a\":\r\r}", "Missing value at 7 [character 0 line 3]");
+		assertSameError("{\r#}", null);
+		assertSameError("{\"a\":\r#1}", null);
+		assertSameError("[\r", null);
+		assertSameError("\r;", null);
+	}
+
+	@Test
+	public void lineBreaks() {
+		assertSameError("{\"a\":1,\n\"b\"\r\n:}", null);
+		assertSameError("[1,\r\n2,\n\r}", null);
+		assertSameError("{\"a\":\"b\r\"}", null);
+		assertSameError("{\"\u00e9\u20ac\":\n\r", null);
+	}
+
+	@Test
+	public void endOfInput() {
+		assertSameError("", null);
+		assertSameError("{", null);
+		assertSameError("{\"a\"", null);
+		assertSameError("[1,2", null);
+		assertSameError("\"abc", null);
+	}
+
+	@Test
+	public void limitsExceeded() {
+		JSONLimits limits = JSONLimits.NONE.withMaxStringLength(4).withMaxNumberLength(4);
+		assertSameError("{\"abcde\":1}", null, limits);
+		assertSameError("{\"a\":\"abcde\"}", null, limits);
+		assertSameError("{\"a\":\"\u00e9\u00e9\u00e9\u00e9\u00e9\"}", null, limits);
+		assertSameError("[123456]", null, limits);
+		assertSameError("[1.23456]", null, limits);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper methods
+
+	private static void assertSameError(String text, String expected) {
+		assertSameError(text, expected, null);
+	}
+
+	/**
+	 * Reads a value with each tokener and compares the error messages. If the expected message is
+	 * given, the reader-based tokener is checked against it as well.
+	 */
+
+	private static void assertSameError(String text, String expected, JSONLimits limits) {
+		String reference = errorOf(new JSONTokener(text), limits);
+		if(expected != null) {
+			assertEquals(expected, reference);
+		}
+		assertEquals("string tokener on " + escape(text), reference,
+				errorOf(new JSONStringTokener(text), limits));
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		assertEquals("byte tokener on " + escape(text), reference,
+				errorOf(new JSONByteTokener(bytes, 0, bytes.length), limits));
+	}
+
+	private static String errorOf(JSONTokener x, JSONLimits limits) {
+		if(limits != null) {
+			x.setLimits(limits);
+		}
+		try {
+			x.nextValue();
+		}
+		catch(JSONException exep) {
+			return exep.getMessage();
+		}
+		fail("no error reading with " + x.getClass().getSimpleName());
+		return null;
+	}
+
+	private static String escape(String text) {
+		return text.replace("\r", "\\r").replace("\n", "\\n");
+	}
+}